@@ -0,0 +1,82 @@
+package de.uni_bremen.pi2;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Eine laufende asynchrone Suche nach dem besten Zug des Computers.
+ * Die Suche kann jederzeit abgebrochen werden. Sie prüft dies in
+ * regelmäßigen Abständen und liefert dann den besten Zug der letzten
+ * vollständig abgeschlossenen Suchtiefe als Ergebnis. Zwischenstände
+ * werden über {@link #report(Move, int, long)} an einen
+ * {@link SearchProgress} weitergegeben.
+ */
+final class ComputerMoveTask
+{
+    /** Das Ergebnis der Suche. */
+    private final CompletableFuture<Move> result = new CompletableFuture<>();
+
+    /** Empfängt die Zwischenstände, oder null. */
+    private final SearchProgress progress;
+
+    /** Wurde die Suche abgebrochen? */
+    private volatile boolean cancelled;
+
+    /**
+     * Konstruktor. Wird das Ergebnis von außen abgeschlossen, z.B. per
+     * {@link CompletableFuture#cancel(boolean)}, hält auch die Suche an.
+     * @param progress Empfängt die Zwischenstände, oder null.
+     */
+    ComputerMoveTask(final SearchProgress progress)
+    {
+        this.progress = progress;
+        result.whenComplete((move, error) -> cancelled = true);
+    }
+
+    /**
+     * Liefert das Ergebnis der Suche.
+     * @return Der beste Zug, sobald die Suche beendet oder abgebrochen ist.
+     */
+    CompletableFuture<Move> getResult()
+    {
+        return result;
+    }
+
+    /**
+     * Bricht die Suche ab. Das Ergebnis wird danach mit dem besten bisher
+     * gefundenen Zug abgeschlossen.
+     */
+    void cancel()
+    {
+        cancelled = true;
+    }
+
+    /**
+     * Meldet einen Zwischenstand an den Empfänger, sofern es einen gibt.
+     * Eine Ausnahme des Empfängers wird ignoriert, damit sie weder die
+     * Suche beendet noch das Ergebnis um den besten Zug bringt.
+     * @param bestMove Der beste bisher gefundene Zug.
+     * @param depth Die Suchtiefe, bis zu der vollständig gesucht wurde.
+     * @param nodes Die Anzahl der bisher insgesamt durchsuchten Knoten.
+     */
+    void report(final Move bestMove, final int depth, final long nodes)
+    {
+        if (progress == null) {
+            return;
+        }
+        try {
+            progress.update(bestMove, depth, nodes);
+        }
+        catch (final RuntimeException e) {
+            // Ein fehlerhafter Empfänger soll die Suche nicht stören.
+        }
+    }
+
+    /**
+     * Prüft, ob die Suche abgebrochen wurde.
+     * @return Wurde die Suche abgebrochen?
+     */
+    boolean isCancelled()
+    {
+        return cancelled;
+    }
+}
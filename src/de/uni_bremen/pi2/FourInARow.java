@@ -1,5 +1,11 @@
 package de.uni_bremen.pi2;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static de.uni_bremen.pi2.Player.*;
 import static de.uni_bremen.pi2.Result.*;
 
@@ -18,14 +24,235 @@ class FourInARow {
     private final int depth;
 
     /**
-     * Konstruktor.
+     * Die Anzahl der Steine, die bei den bisherigen Konstruktoren in einer Reihe liegen müssen.
+     */
+    static final int DEFAULT_LENGTH = 4;
+
+    /**
+     * Die vorberechneten Reihen des Spielfelds.
+     */
+    private final LineTable lines;
+
+    /**
+     * Die Anzahl der belegten Felder. Wird bei jedem (auch simulierten) Zug fortgeschrieben.
+     */
+    private int belegt;
+
+    /**
+     * Die Steine des Menschen als Bitmaske, nur wenn das Spielfeld in ein long passt
+     * (siehe {@link LineTable#isPacked()}). Wird bei jedem (auch simulierten) Zug fortgeschrieben.
+     */
+    private long steineMensch;
+
+    /**
+     * Die Steine des Computers als Bitmaske, wie {@link #steineMensch}.
+     */
+    private long steineComputer;
+
+    /**
+     * Die Bewertung des tatsächlichen Spielstands, siehe {@link #bewerten()}. Da die Suche
+     * jeden simulierten Zug, der eine Reihe vervollständigt, sofort als Sieg bewertet, hat
+     * jeder Spielstand, an dem sie die maximale Tiefe erreicht, dieselbe Bewertung.
+     */
+    private int grundBewertung;
+
+    /**
+     * Anzahl der Einträge der flüchtigen Transpositionstabelle, falls keine
+     * Datei verwendet wird.
+     */
+    static final int CACHE_ENTRIES = 1 << 16;
+
+    /**
+     * Bewertungen, die näher als dieser Abstand an Integer.MIN_VALUE bzw.
+     * Integer.MAX_VALUE liegen, sind Siegesbewertungen.
+     */
+    private static final int SIEG_SPANNE = 1 << 20;
+
+    /**
+     * Die Schlüssel zur Berechnung des Hashwerts des Spielfelds.
+     */
+    private final Zobrist zobrist;
+
+    /**
+     * Die Tabelle der bereits durchsuchten Spielstände.
+     */
+    private final PositionCache cache;
+
+    /**
+     * Der Hashwert des aktuellen Spielfelds. Wird bei jedem (auch simulierten)
+     * Zug fortgeschrieben.
+     */
+    private long hash;
+
+    /**
+     * Die Einstellungen der selektiven Suche.
+     */
+    private final SearchSettings settings;
+
+    /**
+     * Ist ein Null-Zug derzeit erlaubt? Innerhalb einer Null-Zug-Suche nicht.
+     */
+    private boolean nullZugErlaubt = true;
+
+    /**
+     * Die Anzahl der bisher durchsuchten Knoten.
+     */
+    private long knoten;
+
+    /**
+     * Die asynchrone Suche, zu der dieses Spiel gehört, oder null, wenn die Suche nicht
+     * abgebrochen werden kann.
+     */
+    private final ComputerMoveTask auftrag;
+
+    /**
+     * Nach wie vielen Knoten jeweils geprüft wird, ob die Suche abgebrochen wurde
+     * (als Bitmaske, also Zweierpotenz minus eins).
+     */
+    private static final int ABBRUCH_INTERVALL = 1023;
+
+    /**
+     * Nach wie vielen Knoten jeweils ein Zwischenstand gemeldet wird (als Bitmaske,
+     * also Zweierpotenz minus eins, die {@link #ABBRUCH_INTERVALL} enthält).
+     */
+    private static final int MELDE_INTERVALL = (1 << 16) - 1;
+
+    /**
+     * Der beste bisher gefundene Zug an der Wurzel der laufenden Suche, zu Beginn der
+     * beste Zug der vorigen Suchtiefe. Wird in den Zwischenständen gemeldet.
+     */
+    private Move wurzelZug;
+
+    /**
+     * Wird geworfen, um eine abgebrochene Suche bis zu ihrem Ausgangspunkt zu beenden.
+     * Ohne Stacktrace, da sie nur der Ablaufsteuerung dient.
+     */
+    private static final class SucheAbgebrochenException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Konstruktor.
+         */
+        SucheAbgebrochenException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Konstruktor für vier in einer Reihe. Es wird eine flüchtige Tabelle für bereits
+     * durchsuchte Spielstände angelegt.
      *
-     * @param field Das Spielfeld. Muss quadratisch sein.
+     * @param field Das Spielfeld. Alle Zeilen müssen gleich lang sein.
      * @param depth Die maximale Suchtiefe.
      */
     FourInARow(final Player[][] field, final int depth) {
+        this(field, depth, DEFAULT_LENGTH);
+    }
+
+    /**
+     * Konstruktor mit wählbarer Reihenlänge, z.B. 5 für Gomoku. Es wird eine flüchtige
+     * Tabelle für bereits durchsuchte Spielstände angelegt und mit voller Breite gesucht.
+     *
+     * @param field  Das Spielfeld. Alle Zeilen müssen gleich lang sein.
+     * @param depth  Die maximale Suchtiefe.
+     * @param length Die Anzahl der Steine, die zum Sieg in einer Reihe liegen müssen.
+     */
+    FourInARow(final Player[][] field, final int depth, final int length) {
+        this(field, depth, length,
+                PositionCache.inMemory(field.length, field[0].length, length, CACHE_ENTRIES),
+                SearchSettings.FULL_WIDTH);
+    }
+
+    /**
+     * Konstruktor für vier in einer Reihe mit vorgegebener Tabelle für bereits durchsuchte
+     * Spielstände, z.B. einer mit {@link PositionCache#open} geöffneten Datei. Gesucht wird
+     * mit voller Breite.
+     *
+     * @param field Das Spielfeld. Alle Zeilen müssen gleich lang sein.
+     * @param depth Die maximale Suchtiefe.
+     * @param cache Die Tabelle der bereits durchsuchten Spielstände.
+     */
+    FourInARow(final Player[][] field, final int depth, final PositionCache cache) {
+        this(field, depth, cache, SearchSettings.FULL_WIDTH);
+    }
+
+    /**
+     * Konstruktor für vier in einer Reihe mit vorgegebener Tabelle und Einstellungen der
+     * selektiven Suche.
+     *
+     * @param field    Das Spielfeld. Alle Zeilen müssen gleich lang sein.
+     * @param depth    Die maximale Suchtiefe.
+     * @param cache    Die Tabelle der bereits durchsuchten Spielstände.
+     * @param settings Die Einstellungen der selektiven Suche.
+     */
+    FourInARow(final Player[][] field, final int depth, final PositionCache cache,
+               final SearchSettings settings) {
+        this(field, depth, DEFAULT_LENGTH, cache, settings);
+    }
+
+    /**
+     * Konstruktor mit wählbarer Reihenlänge, vorgegebener Tabelle und Einstellungen der
+     * selektiven Suche.
+     *
+     * @param field    Das Spielfeld. Alle Zeilen müssen gleich lang sein.
+     * @param depth    Die maximale Suchtiefe.
+     * @param length   Die Anzahl der Steine, die zum Sieg in einer Reihe liegen müssen.
+     * @param cache    Die Tabelle der bereits durchsuchten Spielstände. Muss für dieselbe
+     *                 Spielfeldgröße und Reihenlänge angelegt worden sein.
+     * @param settings Die Einstellungen der selektiven Suche.
+     * @throws IllegalArgumentException Die Tabelle passt nicht zu Spielfeld und Reihenlänge.
+     */
+    FourInARow(final Player[][] field, final int depth, final int length, final PositionCache cache,
+               final SearchSettings settings) {
+        if (!cache.matches(field.length, field[0].length, length)) {
+            throw new IllegalArgumentException("Die Tabelle passt nicht zu Spielfeld und Reihenlänge");
+        }
         this.currentField = field;
         this.depth = depth;
+        this.lines = new LineTable(field.length, field[0].length, length);
+        this.cache = cache;
+        this.settings = settings;
+        this.auftrag = null;
+        this.zobrist = new Zobrist(field.length, field[0].length);
+        this.hash = zobrist.hash(field);
+        for (final Player[] zeile : field) {
+            for (final Player p : zeile) {
+                if (p != EMPTY) {
+                    belegt++;
+                }
+            }
+        }
+        if (lines.isPacked()) {
+            this.steineMensch = lines.stones(field, HUMAN);
+            this.steineComputer = lines.stones(field, COMPUTER);
+        }
+        this.grundBewertung = bewerten();
+    }
+
+    /**
+     * Konstruktor für eine Kopie, die auf einem eigenen Spielfeld sucht, sich aber die
+     * Tabelle der bereits durchsuchten Spielstände mit dem Original teilt.
+     *
+     * @param original Das zu kopierende Spiel.
+     * @param depth    Die maximale Suchtiefe der Kopie.
+     * @param auftrag  Die asynchrone Suche, zu der die Kopie gehört, oder null.
+     */
+    private FourInARow(final FourInARow original, final int depth, final ComputerMoveTask auftrag) {
+        this.currentField = new Player[original.currentField.length][];
+        for (int zeile = 0; zeile < currentField.length; zeile++) {
+            currentField[zeile] = original.currentField[zeile].clone();
+        }
+        this.depth = depth;
+        this.lines = original.lines;
+        this.belegt = original.belegt;
+        this.steineMensch = original.steineMensch;
+        this.steineComputer = original.steineComputer;
+        this.grundBewertung = original.grundBewertung;
+        this.auftrag = auftrag;
+        this.cache = original.cache;
+        this.settings = original.settings;
+        this.zobrist = original.zobrist;
+        this.hash = original.hash;
     }
 
     /**
@@ -41,7 +268,8 @@ class FourInARow {
 
         //Zunächst wird hier der Spielzug des HUMAN auf dem Spielfeld gesetzt
 
-        currentField[row][column] = HUMAN;
+        simuliereHumanZug(row, column);
+        grundBewertung = bewerten();
 
         //Anschließend wird geprüft zu welchem Ergebnis der Spielzug führt
 
@@ -82,15 +310,99 @@ class FourInARow {
             return DRAW;
         }
 
+        return computerMove(sucheBestenZug());
+    }
+
+    /**
+     * Bestimmt mit der minimax-Methode den bestmöglichen Zug für den Computer, ohne ihn
+     * auszuführen. Das Spielfeld darf nicht voll sein.
+     *
+     * @return Der beste Zug des Computers.
+     */
+    Move sucheBestenZug() {
+
         //als Parameter an die minimax-Methode wird hier:
         //1.) bestimmt das der Computer am Zug ist
         //2.) die vorm Spielbeginn festgelegte maximale Suchtiefe
         //3.) die 'schlechtmöglichste' Bewertung eines Zugs des Computers
         //4.) die 'schlechtmöglichste' Bewertung eines Zugs des menschlichen Spielers
-        Move besterZug = minimaxMethode(true, depth, Integer.MAX_VALUE, Integer.MIN_VALUE);
+        return minimaxMethode(true, depth, Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Sucht den besten Zug des Computers asynchron, ohne ihn auszuführen. Gesucht wird auf
+     * einer Kopie des Spielfelds zum Zeitpunkt des Aufrufs, mit iterativer Vertiefung von
+     * Suchtiefe 1 bis zur maximalen Suchtiefe. Nach jeder abgeschlossenen Suchtiefe und
+     * regelmäßig während der Suche wird der Zwischenstand gemeldet; Ausnahmen des Empfängers
+     * werden ignoriert. Wird die Suche abgebrochen, ist ihr Ergebnis der beste Zug der
+     * letzten abgeschlossenen Suchtiefe. Suchtiefe 1 wird immer abgeschlossen. Der gefundene
+     * Zug kann anschließend mit {@link #computerMove(Move)} ausgeführt werden. Das Spielfeld
+     * darf nicht voll sein.
+     *
+     * @param executor    Führt die Suche aus.
+     * @param fortschritt Empfängt die Zwischenstände, oder null.
+     * @return Die laufende Suche.
+     */
+    ComputerMoveTask computerMoveAsync(final Executor executor, final SearchProgress fortschritt) {
+        final ComputerMoveTask neuerAuftrag = new ComputerMoveTask(fortschritt);
+        final FourInARow kopie = new FourInARow(this, depth, neuerAuftrag);
+        executor.execute(() -> {
+            try {
+                neuerAuftrag.getResult().complete(kopie.vertiefeIterativ());
+            } catch (final RuntimeException | Error e) {
+                neuerAuftrag.getResult().completeExceptionally(e);
+            }
+        });
+        return neuerAuftrag;
+    }
+
+    /**
+     * Sucht den besten Zug mit iterativer Vertiefung. Jede Suchtiefe wird auf einer eigenen
+     * Kopie durchsucht, damit Siegesbewertungen sich auf den Beginn der jeweiligen Suche
+     * beziehen. Die flacheren Suchen füllen die Tabelle der durchsuchten Spielstände und
+     * verbessern so die Zugsortierung der tieferen.
+     *
+     * @return Der beste Zug der tiefsten abgeschlossenen Suche.
+     */
+    private Move vertiefeIterativ() {
+        Move besterZug = null;
+        for (int tiefe = 1; tiefe <= depth && !(tiefe > 1 && auftrag.isCancelled()); tiefe++) {
+            final FourInARow iteration = new FourInARow(this, tiefe, tiefe > 1 ? auftrag : null);
+            //die Iteration zählt weiter, damit Zwischenstände alle Knoten enthalten
+            iteration.knoten = knoten;
+            iteration.wurzelZug = besterZug;
+            try {
+                besterZug = iteration.sucheBestenZug();
+            } catch (final SucheAbgebrochenException e) {
+                break;
+            } finally {
+                knoten = iteration.knoten;
+            }
+            auftrag.report(besterZug, tiefe, knoten);
+
+            //ein erzwungener Sieg wird durch tiefere Suche nicht besser
+            if (besterZug.getScore() < Integer.MIN_VALUE + SIEG_SPANNE) {
+                break;
+            }
+        }
+        return besterZug;
+    }
+
+    /**
+     * Führt einen bereits bestimmten Zug des Computers aus und bestimmt dessen Ergebnis.
+     * Es wird erwartet, dass das bezeichnete Feld noch frei ist.
+     *
+     * @param besterZug Der auszuführende Zug.
+     * @return Das Ergebnis des Zugs.
+     */
+    Result computerMove(final Move besterZug) {
 
         //besten Zug machen, danach Spielfeld prüfen
-        currentField[besterZug.getRow()][besterZug.getColumn()] = COMPUTER;
+        simuliereComputerZug(besterZug.getRow(), besterZug.getColumn());
+        grundBewertung = bewerten();
+
+        //die Tabelle der durchsuchten Spielstände regelmäßig sichern
+        cache.flushIfDue();
 
         //prüfen ob der Computer gewonnen hat
         if (hasComputerWon() == true) {
@@ -110,6 +422,137 @@ class FourInARow {
         }
     }
 
+    /**
+     * Bestimmt die k besten Züge des Computers mit ihren Hauptvarianten in einer einzigen
+     * Suche, ohne einen Zug auszuführen. Jeder Zug an der Wurzel wird nur so genau durchsucht,
+     * wie nötig ist, um zu entscheiden, ob er besser als der bisher k-beste ist. Die
+     * Hauptvarianten werden aus der Tabelle der durchsuchten Spielstände gelesen, die sich
+     * alle Varianten (und alle Threads) teilen. Das Spielfeld darf nicht voll sein.
+     *
+     * @param k        Die Anzahl der gesuchten Züge. Mindestens 1.
+     * @param threads  Die Anzahl der Teilsuchen, auf die die Züge an der Wurzel verteilt werden.
+     *                 Mindestens 1; bei 1 wird im aufrufenden Thread gesucht.
+     * @param executor Führt die Teilsuchen aus. Der aufrufende Thread wartet auf sie und darf
+     *                 daher nicht der einzige Thread des Executors sein.
+     * @return Höchstens k Varianten, die beste zuerst.
+     */
+    List<Variation> analysiere(final int k, final int threads, final Executor executor) {
+        if (k < 1 || threads < 1) {
+            throw new IllegalArgumentException("Ungültige Anzahl Varianten oder Threads");
+        }
+        final int[] zuege = zugliste(cache.probe(schluessel(true)));
+        final AtomicInteger naechsterZug = new AtomicInteger();
+        final List<Variation> beste = new ArrayList<>(k + 1);
+
+        if (threads == 1) {
+            analysiereWurzelZuege(zuege, naechsterZug, k, beste);
+            return beste;
+        }
+
+        //jede Teilsuche läuft auf einer eigenen Kopie des Spielfelds
+        final List<FourInARow> helfer = new ArrayList<>(threads);
+        final List<CompletableFuture<Void>> auftraege = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final FourInARow kopie = new FourInARow(this, depth, auftrag);
+            helfer.add(kopie);
+            auftraege.add(CompletableFuture.runAsync(
+                    () -> kopie.analysiereWurzelZuege(zuege, naechsterZug, k, beste), executor));
+        }
+        CompletableFuture.allOf(auftraege.toArray(new CompletableFuture<?>[0])).join();
+        for (final FourInARow kopie : helfer) {
+            knoten += kopie.knoten;
+        }
+        return beste;
+    }
+
+    /**
+     * Durchsucht Züge an der Wurzel, bis keine mehr übrig sind, und trägt diejenigen, die
+     * besser als der bisher k-beste sind, samt Hauptvariante in die Liste der besten ein.
+     * Kann von mehreren Threads gleichzeitig (auf je einer eigenen Kopie) aufgerufen werden.
+     *
+     * @param zuege        Alle Züge an der Wurzel
+     * @param naechsterZug Der Index des nächsten noch nicht vergebenen Zugs
+     * @param k            Die Anzahl der gesuchten Züge
+     * @param beste        Die bisher besten Varianten, aufsteigend nach Bewertung sortiert
+     */
+    private void analysiereWurzelZuege(int[] zuege, AtomicInteger naechsterZug, int k,
+                                       List<Variation> beste) {
+        for (int i = naechsterZug.getAndIncrement(); i < zuege.length; i = naechsterZug.getAndIncrement()) {
+            final int zeile = zuege[i] / lines.getColumns();
+            final int spalte = zuege[i] % lines.getColumns();
+
+            //nur Bewertungen unterhalb der bisher k-besten sind interessant,
+            //damit dient diese als alpha der Suche
+            final int schranke;
+            synchronized (beste) {
+                schranke = beste.size() < k ? Integer.MAX_VALUE : beste.get(k - 1).getScore();
+            }
+
+            final List<Move> variante = new ArrayList<>();
+            simuliereComputerZug(zeile, spalte);
+            final int bewertung;
+            if (lines.completesLine(currentField, zeile, spalte)) {
+                bewertung = computerSiegesZugBewertung(depth);
+            } else {
+                bewertung = minimaxMethode(false, depth - 1, schranke, Integer.MIN_VALUE).getScore();
+                if (bewertung < schranke) {
+                    hauptvariante(false, depth - 1, variante);
+                }
+            }
+            rueckgaengig(zeile, spalte);
+
+            if (bewertung < schranke) {
+                variante.add(0, new Move(zeile, spalte, bewertung));
+                synchronized (beste) {
+                    //hinter gleich bewertete einfügen, damit früher sortierte Züge vorne bleiben
+                    int position = beste.size();
+                    while (position > 0 && beste.get(position - 1).getScore() > bewertung) {
+                        position--;
+                    }
+                    beste.add(position, new Variation(variante));
+                    if (beste.size() > k) {
+                        beste.remove(k);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Liest die erwartete Fortsetzung ab dem aktuellen Spielstand aus der Tabelle der
+     * durchsuchten Spielstände. Dazu werden die gespeicherten besten Züge nacheinander
+     * simuliert und danach wieder rückgängig gemacht.
+     *
+     * @param computerIstAmZug Gibt an welcher Spieler am Zug ist
+     * @param suchTiefe        Die Restsuchtiefe, höchstens so viele Züge werden gelesen
+     * @param variante         Die Liste, an die die Züge angehängt werden
+     */
+    private void hauptvariante(boolean computerIstAmZug, int suchTiefe, List<Move> variante) {
+        final int anfang = variante.size();
+        while (suchTiefe > 0) {
+            final PositionCache.Entry eintrag = cache.probe(schluessel(computerIstAmZug));
+            if (eintrag == null || eintrag.getRow() < 0
+                    || !freiesFeld(eintrag.getRow(), eintrag.getColumn())) {
+                break;
+            }
+            variante.add(new Move(eintrag.getRow(), eintrag.getColumn(),
+                    vonCacheBewertung(eintrag.getScore(), suchTiefe)));
+            if (computerIstAmZug) {
+                simuliereComputerZug(eintrag.getRow(), eintrag.getColumn());
+            } else {
+                simuliereHumanZug(eintrag.getRow(), eintrag.getColumn());
+            }
+            if (lines.completesLine(currentField, eintrag.getRow(), eintrag.getColumn())) {
+                break;
+            }
+            computerIstAmZug = !computerIstAmZug;
+            suchTiefe--;
+        }
+        for (int i = variante.size() - 1; i >= anfang; i--) {
+            rueckgaengig(variante.get(i).getRow(), variante.get(i).getColumn());
+        }
+    }
+
     /**
      * Diese Methode wird vom Computer aufgerufen um die maximale Gewinnchance für ihn zu
      * berechnen. Um dies zu tun wird jeder mögliche Spielzug bis zum Erreichen der zu Beginn
@@ -129,6 +572,10 @@ class FourInARow {
      * anhand eines konkreten Suchbaumes mit dazugehörigen Werten, welcher die möglichen Spielzüge inklusive
      * Bewertungen abbildet, erklären. Da dies nicht Teil der Aufgabenstellung ist, verzichten wir an
      * dieser Stelle darauf.
+     * <p>
+     * Erweiterung selektive Suche:
+     * Späte Züge werden reduziert durchsucht und Teilbäume per Null-Zug abgeschnitten,
+     * siehe {@link SearchSettings}.
      *
      * @param computerIstAmZug Gibt an welcher Spieler am Zug ist
      * @param suchTiefe        Gibt an wie Tief gesucht werden soll
@@ -138,114 +585,372 @@ class FourInARow {
      */
     Move minimaxMethode(boolean computerIstAmZug, int suchTiefe, int alpha, int beta) {
 
+        //regelmäßig prüfen, ob die Suche abgebrochen wurde, und seltener den Zwischenstand melden
+        if ((++knoten & ABBRUCH_INTERVALL) == 0 && auftrag != null) {
+            if (auftrag.isCancelled()) {
+                throw new SucheAbgebrochenException();
+            }
+            if ((knoten & MELDE_INTERVALL) == 0 && wurzelZug != null) {
+                auftrag.report(wurzelZug, depth - 1, knoten);
+            }
+        }
+
         //falls die maximale Tiefe der Suche erreicht worden ist oder
         //das Spielfeld voll ist
         if (suchTiefe == 0 || checkIfFull() == true) {
-            //dann soll der aktuelle Zug bewertet werden
-            return new Move(bewerten());
+            //dann soll der aktuelle Zug bewertet werden, er hat dieselbe Bewertung
+            //wie der tatsächliche Spielstand, da jeder simulierte Sieg schon erkannt wurde
+            return new Move(grundBewertung);
 
         }
 
+        //wurde dieser Spielstand schon mit mindestens gleicher Tiefe durchsucht,
+        //kann das gespeicherte Ergebnis verwendet oder zumindest das Fenster verkleinert werden
+        final long schluessel = schluessel(computerIstAmZug);
+        PositionCache.Entry eintrag = cache.probe(schluessel);
+        //ein gespeicherter Zug auf ein belegtes Feld zeigt, dass der Eintrag zu einem anderen
+        //Spielstand gehört (Kollision der Hashwerte), er wird dann nicht verwendet
+        if (eintrag != null && eintrag.getRow() >= 0 && !freiesFeld(eintrag.getRow(), eintrag.getColumn())) {
+            eintrag = null;
+        }
+        //an der Wurzel wird ein ausführbarer Zug benötigt, eine Bewertung allein genügt nicht
+        if (eintrag != null && eintrag.getDepth() >= suchTiefe && (suchTiefe < depth || eintrag.getRow() >= 0)) {
+            final Move gespeicherterZug = new Move(eintrag.getRow(), eintrag.getColumn(),
+                    vonCacheBewertung(eintrag.getScore(), suchTiefe));
+            if (eintrag.getBound() == PositionCache.EXACT) {
+                return gespeicherterZug;
+            } else if (eintrag.getBound() == PositionCache.LOWER_BOUND) {
+                beta = Math.max(beta, gespeicherterZug.getScore());
+            } else {
+                alpha = Math.min(alpha, gespeicherterZug.getScore());
+            }
+            if (beta >= alpha) {
+                return gespeicherterZug;
+            }
+        }
+        //das tatsächlich durchsuchte Fenster bestimmt, welche Art von Schranke das Ergebnis ist
+        final int alphaStart = alpha;
+        final int betaStart = beta;
+
+        //Null-Zug: darf der Spieler am Zug aussetzen und die Stellung ist trotzdem so gut
+        //für ihn, dass der Gegner sie vermeiden würde, muss nicht weiter gesucht werden
+        if (nullZugMoeglich(computerIstAmZug, suchTiefe, alpha, beta)) {
+            final int nullTiefe = suchTiefe - 1 - settings.getNullMoveReduction();
+            final int bewertung;
+            nullZugErlaubt = false;
+            try {
+                bewertung = computerIstAmZug
+                        ? minimaxMethode(false, nullTiefe, beta + 1, beta).getScore()
+                        : minimaxMethode(true, nullTiefe, alpha, alpha - 1).getScore();
+            } finally {
+                nullZugErlaubt = true;
+            }
+            if (computerIstAmZug ? bewertung <= beta : bewertung >= alpha) {
+                return new Move(computerIstAmZug ? beta : alpha);
+            }
+        }
+
+        //alle Züge die noch möglich sind, vielversprechende zuerst
+        final int[] zuege = zugliste(eintrag);
+
         //falls der Computer an der Reihe ist
         if (computerIstAmZug == true) {
 
             Move besterZugComputer = new Move(Integer.MAX_VALUE);
 
-            for (int zeile = 0; zeile < currentField.length; zeile++) {
-
-                for (int spalte = 0; spalte < currentField.length; spalte++) {
-                    //alle Züge die noch möglich sind, sind mit EMPTY markiert
-                    //nur die möglichen Züge sollen überprüft werden
-                    if (currentField[zeile][spalte] == EMPTY) {
-
-                        //die möglichen Züge werden iterativ simuliert
-                        simuliereComputerZug(zeile, spalte);
-
-                        //WENN: einer der simulierten Züge dazu führt, dass der Computer gewonnen hat
-                        //DANN: ist die Bewertung des Zuges abhängig von der Anzahl der Schritte die
-                        // zum Sieg benötigt wurden
-                        //SONST: wird weiterhin nach einer Bewertung gesucht(bis die maximale Suchtiefe
-                        // erreicht wird oder einer der Züge zu einem Sieg eines Spielers führt)
-                        int bewertung = hasComputerWon()
-                                ? computerSiegesZugBewertung(suchTiefe)
-                                : minimaxMethode(false, suchTiefe - 1, alpha, beta).getScore();
-
-                        //falls der derzeitige Zug besser(aus Sicht des Computers) ist
-                        if (bewertung < besterZugComputer.getScore()) {
-                            //DANN: setzte diesen Zug als Besten fest
-                            besterZugComputer = new Move(zeile, spalte, bewertung);
-
-                        }
-                        //setze das Spielfeld zurück, um den nächsten Zug prüfen zu können
-                        rueckgaengig(zeile, spalte);
-
-                        //in alpha wird die Bewertung des (derzeitig) besten Zuges des Computers gespeichert
-                        //jener Wert dient nun zum Vergleich mit dem Wert beta
-                        alpha = Math.min(alpha, bewertung);
-                        //WENN: andere Züge nicht mehr geprüft werden müssen
-                        if (beta >= alpha) {
-
-                            break;
-                        }
+            for (int i = 0; i < zuege.length; i++) {
+                final int zeile = zuege[i] / lines.getColumns();
+                final int spalte = zuege[i] % lines.getColumns();
+                //nur späte Züge ohne belegte Nachbarfelder werden reduziert
+                final boolean reduziert = settings.reduces(i, suchTiefe)
+                        && belegteNachbarn(zeile, spalte) == 0;
+
+                //die möglichen Züge werden iterativ simuliert
+                simuliereComputerZug(zeile, spalte);
+
+                //WENN: einer der simulierten Züge dazu führt, dass der Computer gewonnen hat
+                //DANN: ist die Bewertung des Zuges abhängig von der Anzahl der Schritte die
+                // zum Sieg benötigt wurden
+                //SONST: wird weiterhin nach einer Bewertung gesucht(bis die maximale Suchtiefe
+                // erreicht wird oder einer der Züge zu einem Sieg eines Spielers führt)
+                //Da vor dem Zug noch niemand gewonnen hatte, genügt es, die Reihen durch das
+                //gerade belegte Feld zu prüfen
+                int bewertung;
+                if (lines.completesLine(currentField, zeile, spalte)) {
+                    bewertung = computerSiegesZugBewertung(suchTiefe);
+                } else if (reduziert) {
+                    //späte Züge zunächst reduziert und mit Nullfenster prüfen,
+                    //nur wenn sie alpha verbessern, mit voller Tiefe nachsuchen
+                    bewertung = minimaxMethode(false, suchTiefe - 1 - settings.getReduction(),
+                            alpha, alpha - 1).getScore();
+                    if (bewertung < alpha) {
+                        bewertung = minimaxMethode(false, suchTiefe - 1, alpha, beta).getScore();
                     }
+                } else {
+                    bewertung = minimaxMethode(false, suchTiefe - 1, alpha, beta).getScore();
                 }
-                //DANN: beide Schleifen abbrechen -> keine Züge mehr prüfen(Pruning)
+
+                //falls der derzeitige Zug besser(aus Sicht des Computers) ist
+                if (bewertung < besterZugComputer.getScore()) {
+                    //DANN: setzte diesen Zug als Besten fest
+                    besterZugComputer = new Move(zeile, spalte, bewertung);
+                    //an der Wurzel für die Zwischenstände merken
+                    if (suchTiefe == depth) {
+                        wurzelZug = besterZugComputer;
+                    }
+
+                }
+                //setze das Spielfeld zurück, um den nächsten Zug prüfen zu können
+                rueckgaengig(zeile, spalte);
+
+                //in alpha wird die Bewertung des (derzeitig) besten Zuges des Computers gespeichert
+                //jener Wert dient nun zum Vergleich mit dem Wert beta
+                alpha = Math.min(alpha, bewertung);
+                //WENN: andere Züge nicht mehr geprüft werden müssen
+                //DANN: Schleife abbrechen -> keine Züge mehr prüfen(Pruning)
                 if (beta >= alpha) {
                     break;
                 }
             }
-            return besterZugComputer;
+            return speichern(schluessel, suchTiefe, alphaStart, betaStart, besterZugComputer);
         }
         //falls der menschliche Spieler dran ist
         else {
 
             Move besterZugHuman = new Move(Integer.MIN_VALUE);
 
-            for (int zeile = 0; zeile < currentField.length; zeile++) {
-
-                for (int spalte = 0; spalte < currentField.length; spalte++) {
-                    //alle Züge die noch möglich sind, sind mit EMPTY markiert
-                    //nur die möglichen Züge sollen überprüft werden
-                    if (currentField[zeile][spalte] == EMPTY) {
-
-                        //die möglichen Züge werden iterativ simuliert
-                        simuliereHumanZug(zeile, spalte);
-
-                        //WENN: einer der simulierten Züge dazu führt, dass der Mensch gewonnen hat
-                        //DANN: ist die Bewertung des Zuges abhängig von der Anzahl der Schritte die
-                        // zum Sieg benötigt wurden
-                        //SONST: wird weiterhin nach einer Bewertung gesucht(bis die maximale Suchtiefe
-                        //erreicht wird oder einer der Züge zu einem Sieg eines Spielers führt)
-                        int bewertung = hasHumanWon()
-                                ? humanSiegesZugBewertung(suchTiefe)
-                                : minimaxMethode(true, suchTiefe - 1, alpha, beta).getScore();
-
-                        //falls der derzeitige Zug besser(aus Sicht des Human) ist
-                        if (bewertung > besterZugHuman.getScore()) {
-                            //DANN: setzte diesen Zug als Besten fest
-                            besterZugHuman = new Move(zeile, spalte, bewertung);
-
-                        }
-                        //setze das Spielfeld zurück, um den nächsten Zug prüfen zu können
-                        rueckgaengig(zeile, spalte);
-                        //in beta wird die Bewertung des (derzeitig) besten Zuges des Menschen gespeichert
-                        //jener Wert dient nun zum Vergleich mit dem Wert von alpha
-                        beta = Math.max(beta, bewertung);
-                        //WENN: andere Züge nicht mehr geprüft werden müssen
-                        if (beta >= alpha) {
-                            break;
-                        }
+            for (int i = 0; i < zuege.length; i++) {
+                final int zeile = zuege[i] / lines.getColumns();
+                final int spalte = zuege[i] % lines.getColumns();
+                //nur späte Züge ohne belegte Nachbarfelder werden reduziert
+                final boolean reduziert = settings.reduces(i, suchTiefe)
+                        && belegteNachbarn(zeile, spalte) == 0;
+
+                //die möglichen Züge werden iterativ simuliert
+                simuliereHumanZug(zeile, spalte);
+
+                //WENN: einer der simulierten Züge dazu führt, dass der Mensch gewonnen hat
+                //DANN: ist die Bewertung des Zuges abhängig von der Anzahl der Schritte die
+                // zum Sieg benötigt wurden
+                //SONST: wird weiterhin nach einer Bewertung gesucht(bis die maximale Suchtiefe
+                //erreicht wird oder einer der Züge zu einem Sieg eines Spielers führt)
+                int bewertung;
+                if (lines.completesLine(currentField, zeile, spalte)) {
+                    bewertung = humanSiegesZugBewertung(suchTiefe);
+                } else if (reduziert) {
+                    //späte Züge zunächst reduziert und mit Nullfenster prüfen,
+                    //nur wenn sie beta verbessern, mit voller Tiefe nachsuchen
+                    bewertung = minimaxMethode(true, suchTiefe - 1 - settings.getReduction(),
+                            beta + 1, beta).getScore();
+                    if (bewertung > beta) {
+                        bewertung = minimaxMethode(true, suchTiefe - 1, alpha, beta).getScore();
                     }
+                } else {
+                    bewertung = minimaxMethode(true, suchTiefe - 1, alpha, beta).getScore();
                 }
-                //DANN: beide Schleifen abbrechen -> keine Züge mehr prüfen
+
+                //falls der derzeitige Zug besser(aus Sicht des Human) ist
+                if (bewertung > besterZugHuman.getScore()) {
+                    //DANN: setzte diesen Zug als Besten fest
+                    besterZugHuman = new Move(zeile, spalte, bewertung);
+
+                }
+                //setze das Spielfeld zurück, um den nächsten Zug prüfen zu können
+                rueckgaengig(zeile, spalte);
+                //in beta wird die Bewertung des (derzeitig) besten Zuges des Menschen gespeichert
+                //jener Wert dient nun zum Vergleich mit dem Wert von alpha
+                beta = Math.max(beta, bewertung);
+                //WENN: andere Züge nicht mehr geprüft werden müssen
+                //DANN: Schleife abbrechen -> keine Züge mehr prüfen
                 if (beta >= alpha) {
                     break;
                 }
             }
-            return besterZugHuman;
+            return speichern(schluessel, suchTiefe, alphaStart, betaStart, besterZugHuman);
+        }
+
+
+    }
+
+    /**
+     * Prüft, ob an dieser Stelle der Suche ein Null-Zug versucht werden darf. Nicht erlaubt
+     * ist er an der Wurzel (dort wird ein Zug benötigt), innerhalb einer Null-Zug-Suche und
+     * solange die entscheidende Schranke noch unbegrenzt oder eine Siegesbewertung ist.
+     * <p>
+     * Außerdem nur, wenn der Gegner innerhalb der Restsuchtiefe keine Reihe vervollständigen
+     * kann. Ein zusätzlicher eigener Stein schadet nie, daher ist die Stellung nach dem
+     * Aussetzen höchstens so gut wie mit einem Zug. Die verringerte Tiefe der Null-Zug-Suche
+     * übersieht dann nur eigene Siege, und das Abschneiden ist sicher, siehe {@link SearchSettings}.
+     *
+     * @param computerIstAmZug Gibt an welcher Spieler am Zug ist
+     * @param suchTiefe        Die Restsuchtiefe
+     * @param alpha            Die Bewertung des besten Zuges des Computers
+     * @param beta             Die Bewertung des besten Zuges des Menschen
+     * @return Darf ein Null-Zug versucht werden?
+     */
+    private boolean nullZugMoeglich(boolean computerIstAmZug, int suchTiefe, int alpha, int beta) {
+        if (!nullZugErlaubt || suchTiefe >= depth || !settings.triesNullMove(suchTiefe)) {
+            return false;
+        }
+        final boolean schrankeBegrenzt = computerIstAmZug
+                ? beta > Integer.MIN_VALUE + SIEG_SPANNE && beta < Integer.MAX_VALUE - SIEG_SPANNE
+                : alpha > Integer.MIN_VALUE + SIEG_SPANNE && alpha < Integer.MAX_VALUE - SIEG_SPANNE;
+        if (!schrankeBegrenzt) {
+            return false;
+        }
+        //der Gegner setzt höchstens jeden zweiten der verbleibenden Steine
+        final int fehlend = lines.stonesMissing(currentField, computerIstAmZug ? HUMAN : COMPUTER);
+        return fehlend > suchTiefe / 2;
+    }
+
+    /**
+     * Liefert alle noch möglichen Züge als Index zeile * Spaltenanzahl + spalte. Der beste Zug
+     * aus der Tabelle der durchsuchten Spielstände kommt zuerst, danach Felder mit vielen
+     * belegten Nachbarfeldern. Weit vom Geschehen entfernte Felder stehen am Ende und werden
+     * daher bei der selektiven Suche reduziert.
+     *
+     * @param eintrag Der Eintrag aus der Tabelle für diesen Spielstand oder null
+     * @return Die sortierten Züge
+     */
+    private int[] zugliste(PositionCache.Entry eintrag) {
+        final int zeilen = lines.getRows();
+        final int spalten = lines.getColumns();
+        final int tabellenZug = eintrag != null && eintrag.getRow() >= 0
+                && freiesFeld(eintrag.getRow(), eintrag.getColumn())
+                ? eintrag.getRow() * spalten + eintrag.getColumn() : -1;
+
+        //Züge nach Anzahl der belegten Nachbarfelder (0 bis 8) einsortieren
+        final int[] anzahl = new int[10];
+        final int[] nachbarn = new int[zeilen * spalten];
+        for (int zeile = 0; zeile < zeilen; zeile++) {
+            for (int spalte = 0; spalte < spalten; spalte++) {
+                if (currentField[zeile][spalte] == EMPTY) {
+                    final int index = zeile * spalten + spalte;
+                    nachbarn[index] = index == tabellenZug ? 9 : belegteNachbarn(zeile, spalte);
+                    anzahl[nachbarn[index]]++;
+                } else {
+                    nachbarn[zeile * spalten + spalte] = -1;
+                }
+            }
+        }
+        final int[] beginn = new int[10];
+        int summe = 0;
+        for (int k = 9; k >= 0; k--) {
+            beginn[k] = summe;
+            summe += anzahl[k];
+        }
+        final int[] zuege = new int[summe];
+        for (int index = 0; index < nachbarn.length; index++) {
+            if (nachbarn[index] >= 0) {
+                zuege[beginn[nachbarn[index]]++] = index;
+            }
         }
+        return zuege;
+    }
 
+    /**
+     * Prüft, ob ein Feld auf dem Spielfeld liegt und frei ist. Dient zur Prüfung von Zügen
+     * aus der Tabelle der durchsuchten Spielstände, bevor sie verwendet werden.
+     *
+     * @param zeile  Zeilenposition auf dem Spielfeld
+     * @param spalte Spaltenposition auf dem Spielfeld
+     * @return Ist das Feld frei?
+     */
+    private boolean freiesFeld(int zeile, int spalte) {
+        return zeile >= 0 && zeile < lines.getRows() && spalte >= 0 && spalte < lines.getColumns()
+                && currentField[zeile][spalte] == EMPTY;
+    }
 
+    /**
+     * Zählt die belegten Felder rund um ein Feld.
+     *
+     * @param zeile  Zeilenposition auf dem Spielfeld
+     * @param spalte Spaltenposition auf dem Spielfeld
+     * @return Die Anzahl der belegten Nachbarfelder
+     */
+    private int belegteNachbarn(int zeile, int spalte) {
+        int belegt = 0;
+        for (int z = Math.max(0, zeile - 1); z <= Math.min(lines.getRows() - 1, zeile + 1); z++) {
+            for (int s = Math.max(0, spalte - 1); s <= Math.min(lines.getColumns() - 1, spalte + 1); s++) {
+                if (currentField[z][s] != EMPTY) {
+                    belegt++;
+                }
+            }
+        }
+        return belegt;
+    }
+
+    /**
+     * Speichert das Ergebnis einer Suche in der Tabelle der durchsuchten Spielstände.
+     * Liegt die Bewertung außerhalb des durchsuchten Fensters, ist sie nur eine Schranke.
+     *
+     * @param schluessel Der Hashwert des Spielstands inklusive des Spielers am Zug
+     * @param suchTiefe  Die Restsuchtiefe, mit der gesucht wurde
+     * @param alpha      Das alpha, mit dem gesucht wurde
+     * @param beta       Das beta, mit dem gesucht wurde
+     * @param besterZug  Der gefundene beste Zug
+     * @return Der übergebene beste Zug
+     */
+    private Move speichern(long schluessel, int suchTiefe, int alpha, int beta, Move besterZug) {
+        final int bewertung = besterZug.getScore();
+        final byte schranke;
+        if (bewertung <= beta) {
+            schranke = PositionCache.UPPER_BOUND;
+        } else if (bewertung >= alpha) {
+            schranke = PositionCache.LOWER_BOUND;
+        } else {
+            schranke = PositionCache.EXACT;
+        }
+        cache.store(schluessel, suchTiefe, schranke, zuCacheBewertung(bewertung, suchTiefe),
+                besterZug.getRow(), besterZug.getColumn());
+        return besterZug;
+    }
+
+    /**
+     * Liefert den Hashwert des aktuellen Spielfelds inklusive des Spielers am Zug und der
+     * Einstellungen der selektiven Suche, siehe {@link SearchSettings#fingerprint()}.
+     *
+     * @param computerIstAmZug Gibt an welcher Spieler am Zug ist
+     * @return Der Schlüssel für die Tabelle der durchsuchten Spielstände
+     */
+    private long schluessel(boolean computerIstAmZug) {
+        return (computerIstAmZug ? hash ^ zobrist.computerToMove() : hash) ^ settings.fingerprint();
+    }
+
+    /**
+     * Siegesbewertungen hängen von der Anzahl der Schritte seit Beginn der Suche ab.
+     * In der Tabelle werden sie deshalb relativ zum gespeicherten Spielstand abgelegt,
+     * damit sie auch in späteren Suchen von einem anderen Ausgangspunkt aus stimmen.
+     *
+     * @param bewertung Die Bewertung relativ zum Beginn der Suche
+     * @param suchTiefe Die Restsuchtiefe des Spielstands
+     * @return Die Bewertung relativ zum Spielstand
+     */
+    private int zuCacheBewertung(int bewertung, int suchTiefe) {
+        final int schritte = depth - suchTiefe;
+        if (bewertung < Integer.MIN_VALUE + SIEG_SPANNE) {
+            return bewertung - schritte;
+        } else if (bewertung > Integer.MAX_VALUE - SIEG_SPANNE) {
+            return bewertung + schritte;
+        }
+        return bewertung;
+    }
+
+    /**
+     * Umkehrung von {@link #zuCacheBewertung(int, int)}.
+     *
+     * @param bewertung Die Bewertung relativ zum Spielstand
+     * @param suchTiefe Die Restsuchtiefe des Spielstands
+     * @return Die Bewertung relativ zum Beginn der Suche
+     */
+    private int vonCacheBewertung(int bewertung, int suchTiefe) {
+        final int schritte = depth - suchTiefe;
+        if (bewertung < Integer.MIN_VALUE + SIEG_SPANNE) {
+            return bewertung + schritte;
+        } else if (bewertung > Integer.MAX_VALUE - SIEG_SPANNE) {
+            return bewertung - schritte;
+        }
+        return bewertung;
     }
 
     /**
@@ -319,7 +1024,8 @@ class FourInARow {
      * Durch diese Bewertung kann die Wahl für den bestmöglichen Zug des Computers getroffen werden.
      * Nur wenn der Fall eintritt, dass das Spielfeld voll ist oder die maximale Suchtiefe
      * erreicht wurde, ohne dass einer der Spieler während der Simulation der Spielzüge in minimax() gewonnen hat,
-     * wird diese Methode aufgerufen. Alle Züge, welche vor dem Erreichen der maximalen Suchtiefe
+     * wird diese Bewertung verwendet. Sie ist dann dieselbe wie die des tatsächlichen Spielstands und wird
+     * daher nur nach jedem ausgeführten Zug berechnet, siehe {@link #grundBewertung}. Alle Züge, welche vor dem Erreichen der maximalen Suchtiefe
      * zum Gewinn eines Spielers führen sind besser bewertet als die Züge welche hier bewertet werden.
      *
      * @return Die Bewertung des derzeitigen Spielstandes
@@ -346,6 +1052,11 @@ class FourInARow {
      */
     void simuliereHumanZug(int zeile, int spalte) {
         currentField[zeile][spalte] = HUMAN;
+        hash ^= zobrist.stone(zeile, spalte, HUMAN);
+        belegt++;
+        if (lines.isPacked()) {
+            steineMensch |= lines.bit(zeile, spalte);
+        }
     }
 
     /**
@@ -359,6 +1070,11 @@ class FourInARow {
      */
     void simuliereComputerZug(int zeile, int spalte) {
         currentField[zeile][spalte] = COMPUTER;
+        hash ^= zobrist.stone(zeile, spalte, COMPUTER);
+        belegt++;
+        if (lines.isPacked()) {
+            steineComputer |= lines.bit(zeile, spalte);
+        }
     }
 
     /**
@@ -374,40 +1090,42 @@ class FourInARow {
      * @param spalte Spaltenposition auf dem Spielfeld
      */
     void rueckgaengig(int zeile, int spalte) {
+        hash ^= zobrist.stone(zeile, spalte, currentField[zeile][spalte]);
         currentField[zeile][spalte] = EMPTY;
+        belegt--;
+        if (lines.isPacked()) {
+            steineMensch &= ~lines.bit(zeile, spalte);
+            steineComputer &= ~lines.bit(zeile, spalte);
+        }
     }
 
 
     /**
-     * Diese Methode nutzt die entsprechenden Hilfsmethoden um zu prüfen ob vier Steine
-     * in einer Reihe auf dem Spielfeld liegen.
+     * Diese Methode nutzt die vorberechneten Reihen des Spielfelds um zu prüfen ob
+     * genügend HUMAN-Elemente in einer Reihe auf dem Spielfeld liegen. Kleine Spielfelder
+     * werden über die Bitmaske der Steine geprüft.
      *
      * @return Die Antowort auf die Frage, ob der menschliche Spieler gewonnen hat
      */
     boolean hasHumanWon() {
 
-        //vier mögliche 'Richtungen' prüfen
-        //falls der menschliche Spieler vier in einer Reihe hat gewinnt dieser
-        return checkVertical4win(HUMAN) ||
-                checkHorizontal4win(HUMAN) ||
-                checkDiagonalLeftToRight4win(HUMAN) ||
-                checkDiagonalRightToLeft4win(HUMAN);
+        //alle Reihen in den vier möglichen 'Richtungen' prüfen
+        //falls der menschliche Spieler eine volle Reihe hat gewinnt dieser
+        return lines.isPacked() ? lines.hasLine(steineMensch) : lines.hasLine(currentField, HUMAN);
     }
 
     /**
-     * Diese Methode nutzt die entsprechenden Hilfsmethoden um zu prüfen ob vier HUMAN-Elemente
-     * in einer Reihe auf dem Spielfeld liegen.
+     * Diese Methode nutzt die vorberechneten Reihen des Spielfelds um zu prüfen ob
+     * genügend COMPUTER-Elemente in einer Reihe auf dem Spielfeld liegen. Kleine Spielfelder
+     * werden über die Bitmaske der Steine geprüft.
      *
-     * @return Die Antowort auf die Frage, ob der menschliche Spieler gewonnen hat.
+     * @return Die Antowort auf die Frage, ob der Computer gewonnen hat.
      */
     boolean hasComputerWon() {
 
-        //vier mögliche 'Richtungen' prüfen
-        //falls der Computer vier in einer Reihe hat gewinnt dieser
-        return checkVertical4win(COMPUTER) ||
-                checkHorizontal4win(COMPUTER) ||
-                checkDiagonalLeftToRight4win(COMPUTER) ||
-                checkDiagonalRightToLeft4win(COMPUTER);
+        //alle Reihen in den vier möglichen 'Richtungen' prüfen
+        //falls der Computer eine volle Reihe hat gewinnt dieser
+        return lines.isPacked() ? lines.hasLine(steineComputer) : lines.hasLine(currentField, COMPUTER);
     }
 
     /**
@@ -417,127 +1135,18 @@ class FourInARow {
      */
     boolean checkIfFull() {
 
-        for (Player[] players : currentField) {
-            for (Player p : players
-            ) {
-                //falls noch ein Feld frei ist, ist das Spielfeld nicht voll
-                if (p == EMPTY)
-                    return false;
-            }
-        }
-        return true;
+        //die belegten Felder werden bei jedem Zug mitgezählt
+        return belegt == lines.getRows() * lines.getColumns();
 
     }
 
     /**
-     * Diese Methode prüft ob eine Reihe von vier gleichen Player-Elementen
-     * auf der Diagonalen von rechts nach links exisitiert.
+     * Liefert die Anzahl der bisher von der minimax-Methode durchsuchten Knoten.
      *
-     * @return Existiert eine Reihe von vier gleichen Player-Elementen(diagonal, von rechts nach links) ?
+     * @return Die Anzahl der Knoten.
      */
-    boolean checkDiagonalRightToLeft4win(Player player) {
-
-        //gesucht wird bis zur Zeile, bis zu der es noch möglich ist 4 in einer Reihe zu bekommen
-        for (int row = 0; row < currentField.length - 3; row++) {
-            //gestartet wird bei Spalte 3,
-            //da offensichtlich keine 4 in einer Reihe außerhalb des Spielfeldes liegen
-            for (int column = 3; column < currentField.length; column++) {
-                //falls es ein Feld gibt das dem übergebenen Player-Element entspricht
-                if (currentField[row][column] == player) {
-                    //dann prüfe ob die 3 Felder diagonal von dem Player-Element, jenem entsprechen
-                    if (player == currentField[row + 1][column - 1] &&
-                            player == currentField[row + 2][column - 2] &&
-                            player == currentField[row + 3][column - 3]
-                    ) {
-                        return true;
-                    }
-
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Diese Methode prüft ob eine Reihe von vier gleichen Player-Elementen
-     * auf der Diagonalen von links nach rechts exisitiert.
-     *
-     * @return Existiert eine Reihe von vier gleichen Player-Elementen(diagonal, von links nach rechts) ?
-     */
-    boolean checkDiagonalLeftToRight4win(Player player) {
-
-        //gesucht wird bis zur Zeile, bis zu der es noch möglich ist 4 in einer Reihe zu bekommen
-        for (int row = 0; row < currentField.length - 3; row++) {
-
-            for (int column = 0; column < currentField.length - 3; column++) {
-                //falls es ein Feld gibt das dem übergebenen Player-Element entspricht
-                if (currentField[row][column] == player) {
-                    //dann prüfe ob die 3 Felder diagonal von dem Player-Element, jenem entsprechen
-                    if (player == currentField[row + 1][column + 1] &&
-                            player == currentField[row + 2][column + 2] &&
-                            player == currentField[row + 3][column + 3]
-                    ) {
-                        return true;
-                    }
-
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Diese Methode prüft ob eine Reihe von vier gleichen Player-Elementen
-     * auf einer Horizontalen liegt.
-     *
-     * @return Existiert eine Reihe von vier gleichen Player-Elementen(horizontal) ?
-     */
-    boolean checkHorizontal4win(Player player) {
-
-        for (int row = 0; row < currentField.length; row++) {
-            //gesucht wird bis zur Spalte, bis zu der es noch möglich ist 4 in einer Zeile zu bekommen
-            for (int column = 0; column < currentField.length - 3; column++) {
-
-                //falls es ein Feld gibt das dem übergebenen Player-Element entspricht
-                if (currentField[row][column] == player) {
-                    //dann prüfe ob die 3 Felder daneben dem Player-Element entsprechen
-                    if (player == currentField[row][column + 1] &&
-                            player == currentField[row][column + 2] &&
-                            player == currentField[row][column + 3]
-                    ) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Diese Methode prüft ob eine Reihe von vier gleichen Player-Elementen
-     * auf einer Vertikalen liegt.
-     *
-     * @return Existiert eine Reihe von vier gleichen Player-Elementen(vertikal) ?
-     */
-    boolean checkVertical4win(Player player) {
-
-        //gesucht wird bis zur Zeile, bis zu der es noch möglich ist 4 in einer Reihe zu bekommen
-        for (int row = 0; row < currentField.length - 3; row++) {
-            for (int column = 0; column < currentField.length; column++) {
-
-                //falls es ein Feld gibt das dem übergebenen Player-Element entspricht
-                if (currentField[row][column] == player) {
-                    //dann prüfe ob die 3 Felder darunter dem Player-Element entsprechen
-                    if (player == currentField[row + 1][column] &&
-                            player == currentField[row + 2][column] &&
-                            player == currentField[row + 3][column]
-                    ) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    long getNodeCount() {
+        return knoten;
     }
 
     /**
@@ -0,0 +1,392 @@
+package de.uni_bremen.pi2;
+
+/**
+ * Vorberechnete Tabellen aller Linien eines rechteckigen Spielfelds, auf
+ * denen k Steine in einer Reihe liegen können. Einmal pro Spiel erzeugt,
+ * ersetzen sie die von Größe und Reihenlänge abhängigen Schleifengrenzen
+ * der Siegprüfung.
+ * <p>
+ * Für die vollständige Prüfung werden alle Zeilen, Spalten und Diagonalen
+ * mit mindestens k Feldern nach Richtung gruppiert abgelegt. Für die
+ * Prüfung nach einem einzelnen Zug wird je Feld und Richtung gespeichert,
+ * wie viele Felder (höchstens k-1) in beide Richtungen noch im Spielfeld
+ * liegen.
+ * <p>
+ * Hat das Spielfeld höchstens 64 Felder, kann die vollständige Prüfung
+ * stattdessen auf den Steinen eines Spielers als Bitmaske (Bit
+ * zeile * spalten + spalte) erfolgen. Je Richtung werden dafür der Abstand
+ * benachbarter Felder in Bits und die Felder, auf denen eine Reihe beginnen
+ * kann, vorberechnet.
+ */
+final class LineTable
+{
+    /** Zeilenschritt je Richtung: waagerecht, senkrecht, diagonal nach rechts und nach links unten. */
+    private static final int[] ROW_STEP = {0, 1, 1, 1};
+
+    /** Spaltenschritt je Richtung. */
+    private static final int[] COLUMN_STEP = {1, 0, 1, -1};
+
+    /** Die Anzahl der Zeilen. */
+    private final int rows;
+
+    /** Die Anzahl der Spalten. */
+    private final int columns;
+
+    /** Die Anzahl der Steine, die in einer Reihe liegen müssen. */
+    private final int length;
+
+    /** Die Zeilen der Anfangsfelder aller Linien, nach Richtung gruppiert. */
+    private final int[] startRow;
+
+    /** Die Spalten der Anfangsfelder aller Linien, nach Richtung gruppiert. */
+    private final int[] startColumn;
+
+    /** Die Anzahl der Felder jeder Linie. */
+    private final int[] cells;
+
+    /** Der erste Index in startRow/startColumn/cells je Richtung, plus Gesamtzahl am Ende. */
+    private final int[] directionStart = new int[ROW_STEP.length + 1];
+
+    /** Passt das Spielfeld in ein long? */
+    private final boolean packed;
+
+    /** Der Abstand benachbarter Felder einer Richtung in Bits, nur wenn das Spielfeld in ein long passt. */
+    private final int[] shift = new int[ROW_STEP.length];
+
+    /** Je Richtung die Felder, auf denen eine Reihe beginnt, als Bitmaske. */
+    private final long[] startMask = new long[ROW_STEP.length];
+
+    /**
+     * Wie viele Felder von einem Feld aus in einer Richtung im Spielfeld liegen,
+     * höchstens length-1. Index ((zeile * columns + spalte) * 4 + richtung) * 2,
+     * rückwärts, und dasselbe plus 1, vorwärts.
+     */
+    private final byte[] reach;
+
+    /**
+     * Konstruktor.
+     * @param rows Die Anzahl der Zeilen.
+     * @param columns Die Anzahl der Spalten.
+     * @param length Die Anzahl der Steine, die in einer Reihe liegen müssen.
+     *               Zwischen 1 und 127.
+     */
+    LineTable(final int rows, final int columns, final int length)
+    {
+        if (length < 1 || length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Ungültige Reihenlänge: " + length);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.length = length;
+
+        int count = 0;
+        for (int direction = 0; direction < ROW_STEP.length; direction++) {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    if (cells(row, column, direction) >= length) {
+                        count++;
+                    }
+                }
+            }
+        }
+        startRow = new int[count];
+        startColumn = new int[count];
+        cells = new int[count];
+        reach = new byte[rows * columns * ROW_STEP.length * 2];
+
+        int line = 0;
+        for (int direction = 0; direction < ROW_STEP.length; direction++) {
+            directionStart[direction] = line;
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    final int lineCells = cells(row, column, direction);
+                    if (lineCells >= length) {
+                        startRow[line] = row;
+                        startColumn[line] = column;
+                        cells[line] = lineCells;
+                        line++;
+                    }
+                    final int index = ((row * columns + column) * ROW_STEP.length + direction) * 2;
+                    reach[index] = (byte) steps(row, column, -ROW_STEP[direction], -COLUMN_STEP[direction]);
+                    reach[index + 1] = (byte) steps(row, column, ROW_STEP[direction], COLUMN_STEP[direction]);
+                }
+            }
+        }
+        directionStart[ROW_STEP.length] = line;
+
+        packed = rows * columns <= Long.SIZE;
+        if (packed) {
+            for (int direction = 0; direction < ROW_STEP.length; direction++) {
+                shift[direction] = ROW_STEP[direction] * columns + COLUMN_STEP[direction];
+                for (int row = 0; row < rows; row++) {
+                    for (int column = 0; column < columns; column++) {
+                        if (inside(row + (length - 1) * ROW_STEP[direction],
+                                column + (length - 1) * COLUMN_STEP[direction])) {
+                            startMask[direction] |= bit(row, column);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Bestimmt die Länge der Linie, die auf einem Feld in einer Richtung beginnt.
+     * @param row Die Zeile des Felds.
+     * @param column Die Spalte des Felds.
+     * @param direction Die Richtung.
+     * @return Die Anzahl der Felder der Linie, 0 wenn das Feld kein Anfangsfeld ist,
+     *         d.h. wenn das vorherige Feld noch im Spielfeld liegt.
+     */
+    private int cells(final int row, final int column, final int direction)
+    {
+        final int rowStep = ROW_STEP[direction];
+        final int columnStep = COLUMN_STEP[direction];
+        if (inside(row - rowStep, column - columnStep)) {
+            return 0;
+        }
+        int cells = 1;
+        while (inside(row + cells * rowStep, column + cells * columnStep)) {
+            cells++;
+        }
+        return cells;
+    }
+
+    /**
+     * Prüft, ob ein Feld im Spielfeld liegt.
+     * @param row Die Zeile.
+     * @param column Die Spalte.
+     * @return Liegt das Feld im Spielfeld?
+     */
+    private boolean inside(final int row, final int column)
+    {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    /**
+     * Zählt, wie viele Felder von einem Feld aus in einer Richtung im Spielfeld liegen.
+     * @param row Die Zeile des Felds.
+     * @param column Die Spalte des Felds.
+     * @param rowStep Der Zeilenschritt.
+     * @param columnStep Der Spaltenschritt.
+     * @return Die Anzahl, höchstens length-1.
+     */
+    private int steps(final int row, final int column, final int rowStep, final int columnStep)
+    {
+        int steps = 0;
+        while (steps < length - 1) {
+            final int r = row + (steps + 1) * rowStep;
+            final int c = column + (steps + 1) * columnStep;
+            if (!inside(r, c)) {
+                break;
+            }
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * Liefert die Anzahl der Zeilen.
+     * @return Die Anzahl.
+     */
+    int getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Liefert die Anzahl der Spalten.
+     * @return Die Anzahl.
+     */
+    int getColumns()
+    {
+        return columns;
+    }
+
+    /**
+     * Liefert die Anzahl der Steine, die in einer Reihe liegen müssen.
+     * @return Die Reihenlänge.
+     */
+    int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Passt das Spielfeld in ein long, hat es also höchstens 64 Felder?
+     * Nur dann dürfen {@link #bit(int, int)}, {@link #stones(Player[][], Player)}
+     * und {@link #hasLine(long)} verwendet werden.
+     * @return Die Antwort.
+     */
+    boolean isPacked()
+    {
+        return packed;
+    }
+
+    /**
+     * Liefert das Bit eines Felds in der gepackten Darstellung.
+     * @param row Die Zeile.
+     * @param column Die Spalte.
+     * @return Die Bitmaske mit genau diesem Feld.
+     */
+    long bit(final int row, final int column)
+    {
+        return 1L << (row * columns + column);
+    }
+
+    /**
+     * Packt die Steine eines Spielers in eine Bitmaske.
+     * @param field Das Spielfeld.
+     * @param player Der Spieler.
+     * @return Die Bitmaske der Felder des Spielers.
+     */
+    long stones(final Player[][] field, final Player player)
+    {
+        long stones = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (field[row][column] == player) {
+                    stones |= bit(row, column);
+                }
+            }
+        }
+        return stones;
+    }
+
+    /**
+     * Prüft die gepackten Steine eines Spielers, ob sie irgendwo eine volle
+     * Reihe bilden. Je Richtung wird die Maske mit sich selbst, um ein,
+     * zwei, vier ... Felder verschoben, verknüpft, bis jedes gesetzte Bit
+     * für k Steine ab diesem Feld steht. Über den Rand einer Zeile
+     * hinausgeschobene Bits fallen durch die Maske der Anfangsfelder weg.
+     * @param stones Die Steine des Spielers, siehe {@link #stones(Player[][], Player)}.
+     * @return Hat der Spieler eine volle Reihe?
+     */
+    boolean hasLine(final long stones)
+    {
+        for (int direction = 0; direction < ROW_STEP.length; direction++) {
+            long run = stones;
+            int runLength = 1;
+            while (runLength * 2 <= length) {
+                run &= run >>> (runLength * shift[direction]);
+                runLength *= 2;
+            }
+            if (runLength < length) {
+                run &= run >>> ((length - runLength) * shift[direction]);
+            }
+            if ((run & startMask[direction]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prüft das ganze Spielfeld, ob ein Spieler irgendwo eine volle Reihe hat.
+     * Jede Reihe einer Linie wird vom letzten Feld her geprüft. Gehört ein
+     * Feld nicht dem Spieler, kann keine Reihe, die es enthält, voll sein,
+     * und die Prüfung springt hinter dieses Feld. Auf dünn besetzten
+     * Spielfeldern wird so nur etwa jedes k-te Feld gelesen.
+     * @param field Das Spielfeld.
+     * @param player Der Spieler.
+     * @return Hat der Spieler eine volle Reihe?
+     */
+    boolean hasLine(final Player[][] field, final Player player)
+    {
+        for (int direction = 0; direction < ROW_STEP.length; direction++) {
+            final int rowStep = ROW_STEP[direction];
+            final int columnStep = COLUMN_STEP[direction];
+            for (int line = directionStart[direction]; line < directionStart[direction + 1]; line++) {
+                final int row = startRow[line];
+                final int column = startColumn[line];
+                final int last = cells[line] - length;
+                // start ist das erste Feld der gerade geprüften Reihe
+                int start = 0;
+                while (start <= last) {
+                    int i = start + length - 1;
+                    int r = row + i * rowStep;
+                    int c = column + i * columnStep;
+                    while (field[r][c] == player) {
+                        if (i == start) {
+                            return true;
+                        }
+                        i--;
+                        r -= rowStep;
+                        c -= columnStep;
+                    }
+                    start = i + 1;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bestimmt, wie viele Steine ein Spieler mindestens noch setzen muss, um
+     * eine Reihe zu vervollständigen. Betrachtet werden nur Reihen ohne
+     * Steine des Gegners.
+     * @param field Das Spielfeld.
+     * @param player Der Spieler.
+     * @return Die Anzahl der fehlenden Steine, {@link Integer#MAX_VALUE},
+     *         wenn der Gegner jede Reihe blockiert.
+     */
+    int stonesMissing(final Player[][] field, final Player player)
+    {
+        int missing = Integer.MAX_VALUE;
+        for (int direction = 0; direction < ROW_STEP.length; direction++) {
+            final int rowStep = ROW_STEP[direction];
+            final int columnStep = COLUMN_STEP[direction];
+            for (int line = directionStart[direction]; line < directionStart[direction + 1]; line++) {
+                // Steine des Spielers und des Gegners in den letzten length Feldern
+                int own = 0;
+                int other = 0;
+                for (int i = 0; i < cells[line]; i++) {
+                    final Player entering = field[startRow[line] + i * rowStep][startColumn[line] + i * columnStep];
+                    own += entering == player ? 1 : 0;
+                    other += entering != player && entering != Player.EMPTY ? 1 : 0;
+                    if (i >= length) {
+                        final int j = i - length;
+                        final Player leaving = field[startRow[line] + j * rowStep][startColumn[line] + j * columnStep];
+                        own -= leaving == player ? 1 : 0;
+                        other -= leaving != player && leaving != Player.EMPTY ? 1 : 0;
+                    }
+                    if (i >= length - 1 && other == 0) {
+                        missing = Math.min(missing, length - own);
+                    }
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Prüft, ob der Stein auf einem Feld Teil einer vollen Reihe seines Spielers ist.
+     * Es werden nur die Reihen durch dieses Feld betrachtet.
+     * @param field Das Spielfeld.
+     * @param row Die Zeile des Steins.
+     * @param column Die Spalte des Steins.
+     * @return Liegt der Stein in einer vollen Reihe?
+     */
+    boolean completesLine(final Player[][] field, final int row, final int column)
+    {
+        final Player player = field[row][column];
+        final int base = (row * columns + column) * ROW_STEP.length * 2;
+        for (int direction = 0; direction < ROW_STEP.length; direction++) {
+            final int rowStep = ROW_STEP[direction];
+            final int columnStep = COLUMN_STEP[direction];
+            int count = 1;
+            final int backward = reach[base + direction * 2];
+            for (int i = 1; i <= backward && field[row - i * rowStep][column - i * columnStep] == player; i++) {
+                count++;
+            }
+            final int forward = reach[base + direction * 2 + 1];
+            for (int i = 1; i <= forward && field[row + i * rowStep][column + i * columnStep] == player; i++) {
+                count++;
+            }
+            if (count >= length) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
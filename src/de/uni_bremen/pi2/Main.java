@@ -1,5 +1,8 @@
 package de.uni_bremen.pi2;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Scanner;
 
@@ -12,6 +15,9 @@ import static de.uni_bremen.pi2.Result.*;
  */
 public class Main
 {
+    /** Anzahl der Einträge der Datei mit den durchsuchten Spielständen. */
+    private static final int CACHE_ENTRIES = 1 << 20;
+
     /**
      * Das Hauptprogramm des Spiels. Liest Zahlen von der Konsole ein
      * und übergibt diese an das Spiel. Gibt passende Meldungen zu den
@@ -21,22 +27,43 @@ public class Main
      * Tastatureingaben sind durch Leerraum voneinander getrennt.
      * Zeilen- und Spaltennummern sind dabei 1-basiert, während sie
      * intern 0-basiert sind.
-     * @param args Werden ignoriert.
+     * @param args Optional der Pfad einer Datei, in der bereits
+     *             durchsuchte Spielstände über Programmläufe hinweg
+     *             gespeichert werden.
+     * @throws IOException Die Datei konnte nicht geöffnet werden.
      */
-    public static void main(final String[] args)
+    public static void main(final String[] args) throws IOException
     {
 
         final Scanner scanner = new Scanner(System.in);
 
         System.out.println("Vier in einer Reihe\n");
-        System.out.println("Spielfeldgröße und maximale Suchtiefe?");
+        System.out.println("Anzahl Zeilen, Anzahl Spalten, Länge einer Reihe und maximale Suchtiefe?");
 
-        final int size = scanner.nextInt();
-        final Player[][] field = new Player[size][size];
+        final int rows = scanner.nextInt();
+        final int columns = scanner.nextInt();
+        final int length = scanner.nextInt();
+        final Player[][] field = new Player[rows][columns];
         for (final Player[] row : field) {
             Arrays.fill(row, EMPTY);
         }
-        final FourInARow game = new FourInARow(field, scanner.nextInt());
+        final FourInARow game;
+        if (args.length > 0) {
+            final PositionCache cache = PositionCache.open(Paths.get(args[0]), rows, columns, length,
+                    CACHE_ENTRIES);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    cache.close();
+                }
+                catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            game = new FourInARow(field, scanner.nextInt(), length, cache, SearchSettings.FULL_WIDTH);
+        }
+        else {
+            game = new FourInARow(field, scanner.nextInt(), length);
+        }
 
         System.out.println("Für jeden Zug jeweils Zeilennummer und Spaltennummer eingeben.");
         System.out.println(game);
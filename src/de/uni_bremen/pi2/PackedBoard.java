@@ -0,0 +1,271 @@
+package de.uni_bremen.pi2;
+
+import static de.uni_bremen.pi2.Player.*;
+
+/**
+ * Ein bitweise gepacktes Spielfeld. Für jeden Spieler wird jede Zeile als
+ * long abgelegt, in dem Bit c angibt, ob in Spalte c ein Stein dieses
+ * Spielers liegt. Dadurch lassen sich alle Reihen einer Zeile mit wenigen
+ * Verschiebungen und Verknüpfungen gleichzeitig prüfen, d.h. bis zu 64
+ * Felder je Operation. Zeilen dürfen höchstens 64 Spalten haben.
+ */
+final class PackedBoard
+{
+    /** Die größte Anzahl Spalten, die in ein long passt. */
+    static final int MAX_COLUMNS = Long.SIZE;
+
+    /** Die Reihenlänge, für die {@link #scan(int)} ausgeschriebene Verknüpfungen nutzt. */
+    private static final int FOUR = 4;
+
+    /** Die Anzahl der Spalten. */
+    private final int columns;
+
+    /** Die Steine des Menschen, eine Bitmaske je Zeile. */
+    private final long[] human;
+
+    /** Die Steine des Computers, eine Bitmaske je Zeile. */
+    private final long[] computer;
+
+    /**
+     * Privater Konstruktor.
+     * @param columns Die Anzahl der Spalten.
+     * @param human Die Steine des Menschen, eine Bitmaske je Zeile.
+     * @param computer Die Steine des Computers, eine Bitmaske je Zeile.
+     */
+    private PackedBoard(final int columns, final long[] human, final long[] computer)
+    {
+        this.columns = columns;
+        this.human = human;
+        this.computer = computer;
+    }
+
+    /**
+     * Prüft, ob Zeilen einer Breite gepackt werden können.
+     * @param columns Die Anzahl der Spalten.
+     * @return Passt eine Zeile in ein long?
+     */
+    static boolean fits(final int columns)
+    {
+        return columns <= MAX_COLUMNS;
+    }
+
+    /**
+     * Packt ein Spielfeld.
+     * @param field Das Spielfeld. Alle Zeilen müssen gleich lang sein und
+     *              dürfen höchstens {@link #MAX_COLUMNS} Spalten haben.
+     * @return Das gepackte Spielfeld.
+     */
+    static PackedBoard of(final Player[][] field)
+    {
+        final int columns = field.length == 0 ? 0 : field[0].length;
+        if (!fits(columns)) {
+            throw new IllegalArgumentException("Zu viele Spalten: " + columns);
+        }
+        final long[] human = new long[field.length];
+        final long[] computer = new long[field.length];
+        for (int row = 0; row < field.length; row++) {
+            long h = 0;
+            long c = 0;
+            for (int column = 0; column < columns; column++) {
+                final Player player = field[row][column];
+                if (player == HUMAN) {
+                    h |= 1L << column;
+                }
+                else if (player == COMPUTER) {
+                    c |= 1L << column;
+                }
+            }
+            human[row] = h;
+            computer[row] = c;
+        }
+        return new PackedBoard(columns, human, computer);
+    }
+
+    /**
+     * Untersucht das Spielfeld in einem Durchlauf auf Siege und Drohungen
+     * beider Seiten. Für jede Richtung werden die Felder aller Reihen, die
+     * in einer Zeile beginnen, durch Verschieben der Zeilenmasken
+     * übereinandergelegt. Ein gesetztes Bit im UND aller Masken ist dann
+     * eine volle Reihe; length-1 Steine und ein freies Feld ergeben eine
+     * Drohung.
+     * @param length Die Anzahl der Felder einer Reihe. Mindestens 1.
+     * @return Das Ergebnis.
+     */
+    ThreatScan scan(final int length)
+    {
+        if (length < 1) {
+            throw new IllegalArgumentException("Ungültige Reihenlänge: " + length);
+        }
+        final int rows = human.length;
+        if (columns < length && rows < length) {
+            return new ThreatScan(false, false, 0, 0);
+        }
+        if (length == FOUR) {
+            return scanFour();
+        }
+        final long all = columns == MAX_COLUMNS ? -1L : (1L << columns) - 1;
+        final long[] empty = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            empty[row] = ~(human[row] | computer[row]) & all;
+        }
+
+        final Counter counter = new Counter();
+        // Reihen nach rechts bzw. links passen nur, wenn die Zeile lang genug ist.
+        final boolean across = columns >= length;
+        // Gültige Anfangsspalten für Reihen nach rechts bzw. nach links.
+        final long toRight = across ? all >>> (length - 1) : 0;
+        final long toLeft = across ? all & -(1L << (length - 1)) : 0;
+        for (int row = 0; row < rows; row++) {
+            // waagerecht
+            counter.add(toRight, human, computer, empty, length, row, 0, -1, 0);
+            if (row + length > rows) {
+                continue;
+            }
+            // senkrecht
+            counter.add(all, human, computer, empty, length, row, 1, 0, 0);
+            // diagonal nach rechts unten und nach links unten
+            counter.add(toRight, human, computer, empty, length, row, 1, -1, 0);
+            counter.add(toLeft, human, computer, empty, length, row, 1, 0, -1);
+        }
+        return new ThreatScan(counter.humanWon != 0, counter.computerWon != 0,
+                counter.humanThreats, counter.computerThreats);
+    }
+
+    /**
+     * Wie {@link #scan(int)} für Reihen aus vier Feldern. Die vier Felder
+     * werden ausgeschrieben statt Feld für Feld mitgeführt, da die
+     * Verknüpfungen dann unabhängig voneinander sind. Das ist für die
+     * übliche Reihenlänge etwa doppelt so schnell.
+     * @return Das Ergebnis.
+     */
+    private ThreatScan scanFour()
+    {
+        final int rows = human.length;
+        final long all = columns == MAX_COLUMNS ? -1L : (1L << columns) - 1;
+        // Gültige Anfangsspalten für Reihen nach rechts bzw. nach links.
+        final long toRight = columns < FOUR ? 0 : all >>> (FOUR - 1);
+        final long toLeft = columns < FOUR ? 0 : all & -(1L << (FOUR - 1));
+
+        final long[] empty = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            empty[row] = ~(human[row] | computer[row]) & all;
+        }
+
+        final Counter counter = new Counter();
+        for (int row = 0; row < rows; row++) {
+            // waagerecht
+            counter.add(toRight,
+                    human[row], human[row] >>> 1, human[row] >>> 2, human[row] >>> 3,
+                    computer[row], computer[row] >>> 1, computer[row] >>> 2, computer[row] >>> 3,
+                    empty[row], empty[row] >>> 1, empty[row] >>> 2, empty[row] >>> 3);
+            if (row + FOUR > rows) {
+                continue;
+            }
+            // senkrecht
+            counter.add(all,
+                    human[row], human[row + 1], human[row + 2], human[row + 3],
+                    computer[row], computer[row + 1], computer[row + 2], computer[row + 3],
+                    empty[row], empty[row + 1], empty[row + 2], empty[row + 3]);
+            // diagonal nach rechts unten
+            counter.add(toRight,
+                    human[row], human[row + 1] >>> 1, human[row + 2] >>> 2, human[row + 3] >>> 3,
+                    computer[row], computer[row + 1] >>> 1, computer[row + 2] >>> 2, computer[row + 3] >>> 3,
+                    empty[row], empty[row + 1] >>> 1, empty[row + 2] >>> 2, empty[row + 3] >>> 3);
+            // diagonal nach links unten
+            counter.add(toLeft,
+                    human[row], human[row + 1] << 1, human[row + 2] << 2, human[row + 3] << 3,
+                    computer[row], computer[row + 1] << 1, computer[row + 2] << 2, computer[row + 3] << 3,
+                    empty[row], empty[row + 1] << 1, empty[row + 2] << 2, empty[row + 3] << 3);
+        }
+        return new ThreatScan(counter.humanWon != 0, counter.computerWon != 0,
+                counter.humanThreats, counter.computerThreats);
+    }
+
+    /**
+     * Sammelt die Ergebnisse der einzelnen Richtungen und Zeilen.
+     */
+    private static final class Counter
+    {
+        /** Alle vollen Reihen des Menschen, ODER-verknüpft. */
+        private long humanWon;
+
+        /** Alle vollen Reihen des Computers, ODER-verknüpft. */
+        private long computerWon;
+
+        /** Die Anzahl der Drohungen des Menschen. */
+        private int humanThreats;
+
+        /** Die Anzahl der Drohungen des Computers. */
+        private int computerThreats;
+
+        /**
+         * Wertet alle Reihen einer Richtung aus, die in einer Zeile beginnen.
+         * Feld für Feld der Reihe wird mitgeführt, welche Reihen bisher nur
+         * eigene Steine enthalten und welche genau ein freies Feld. Die
+         * Spaltenrichtung wird über Masken statt Verzweigungen gewählt: das
+         * i-te Feld wird um (i &amp; right) nach rechts und um (i &amp; left)
+         * nach links verschoben.
+         * @param valid Die Anfangsspalten, deren Reihen im Spielfeld liegen.
+         * @param human Die Steine des Menschen, eine Bitmaske je Zeile.
+         * @param computer Die Steine des Computers, eine Bitmaske je Zeile.
+         * @param empty Die freien Felder, eine Bitmaske je Zeile.
+         * @param length Die Anzahl der Felder einer Reihe.
+         * @param row Die Zeile der Anfangsfelder.
+         * @param rowStep Der Zeilenschritt der Richtung (0 oder 1).
+         * @param right -1 für Reihen nach rechts, sonst 0.
+         * @param left -1 für Reihen nach links, sonst 0.
+         */
+        private void add(final long valid, final long[] human, final long[] computer, final long[] empty,
+                         final int length, final int row, final int rowStep, final int right, final int left)
+        {
+            long humanAll = valid;
+            long computerAll = valid;
+            long humanOneEmpty = 0;
+            long computerOneEmpty = 0;
+            for (int i = 0, r = row; i < length; i++, r += rowStep) {
+                final long h = human[r] >>> (i & right) << (i & left);
+                final long c = computer[r] >>> (i & right) << (i & left);
+                final long e = empty[r] >>> (i & right) << (i & left);
+                humanOneEmpty = (humanOneEmpty & h) | (humanAll & e);
+                computerOneEmpty = (computerOneEmpty & c) | (computerAll & e);
+                humanAll &= h;
+                computerAll &= c;
+            }
+            humanWon |= humanAll;
+            computerWon |= computerAll;
+            humanThreats += Long.bitCount(humanOneEmpty);
+            computerThreats += Long.bitCount(computerOneEmpty);
+        }
+
+        /**
+         * Wertet die vier übereinandergelegten Felder aller Reihen aus, die
+         * in einer Zeile beginnen.
+         * @param valid Die Anfangsspalten, deren Reihen im Spielfeld liegen.
+         * @param h0 Erstes Feld, Mensch.
+         * @param h1 Zweites Feld, Mensch.
+         * @param h2 Drittes Feld, Mensch.
+         * @param h3 Viertes Feld, Mensch.
+         * @param c0 Erstes Feld, Computer.
+         * @param c1 Zweites Feld, Computer.
+         * @param c2 Drittes Feld, Computer.
+         * @param c3 Viertes Feld, Computer.
+         * @param e0 Erstes Feld, frei.
+         * @param e1 Zweites Feld, frei.
+         * @param e2 Drittes Feld, frei.
+         * @param e3 Viertes Feld, frei.
+         */
+        private void add(final long valid,
+                         final long h0, final long h1, final long h2, final long h3,
+                         final long c0, final long c1, final long c2, final long c3,
+                         final long e0, final long e1, final long e2, final long e3)
+        {
+            humanWon |= h0 & h1 & h2 & h3 & valid;
+            computerWon |= c0 & c1 & c2 & c3 & valid;
+            // Genau ein Feld ist frei, die anderen drei gehören demselben Spieler.
+            humanThreats += Long.bitCount(valid
+                    & ((e0 & h1 & h2 & h3) | (h0 & e1 & h2 & h3) | (h0 & h1 & e2 & h3) | (h0 & h1 & h2 & e3)));
+            computerThreats += Long.bitCount(valid
+                    & ((e0 & c1 & c2 & c3) | (c0 & e1 & c2 & c3) | (c0 & c1 & e2 & c3) | (c0 & c1 & c2 & e3)));
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package de.uni_bremen.pi2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Eine Tabelle bereits durchsuchter Spielstände (Transpositionstabelle).
+ * Zu jedem Spielstand werden Hashwert, Restsuchtiefe, Art der Schranke,
+ * Bewertung und bester Zug gespeichert.
+ * <p>
+ * Die Tabelle kann im Speicher liegen oder über eine Datei per Memory-Map
+ * abgebildet werden. Im zweiten Fall bleibt die Sucharbeit über Neustarts
+ * erhalten. Beim Öffnen wird nur der Kopf der Datei gelesen; die Einträge
+ * selbst werden erst beim Zugriff vom Betriebssystem eingelagert.
+ * Passt der Kopf nicht zu Spielfeldgröße, Reihenlänge, Tabellengröße oder
+ * {@link #VERSION}, wird die Datei verworfen und leer neu angelegt.
+ * <p>
+ * Aufbau eines Eintrags (20 Bytes): Prüfwort (long), Bewertung (int),
+ * Restsuchtiefe (short), Schranke (byte), Generation (byte), Zeile (short)
+ * und Spalte (short). Das Prüfwort ist der Schlüssel, XOR-verknüpft mit
+ * den übrigen zwölf Bytes des Eintrags. Ein Eintrag, der nur teilweise
+ * geschrieben wurde, etwa weil der Prozess abgebrochen wurde oder ein
+ * zweiter Prozess dieselbe Datei beschreibt, passt dadurch zu keinem
+ * Schlüssel und wird wie ein freier Platz behandelt. Ein Platz aus
+ * lauter Nullen ist frei.
+ * <p>
+ * Die Generation zählt, wie oft die Datei geöffnet wurde, und steht im
+ * Kopf. Jeder Eintrag erhält die Generation, in der er geschrieben wurde.
+ * Ein tiefer Eintrag eines anderen Spielstands verdrängt neue Einträge nur
+ * innerhalb seiner Generation; Einträge aus früheren Sitzungen werden
+ * immer ersetzt, damit die Tabelle nicht mit der Zeit voll veralteter
+ * tiefer Einträge läuft. Die Generation läuft nach 256 Sitzungen über,
+ * ein so alter Eintrag gilt dann wieder als aktuell.
+ * <p>
+ * Das Schreiben eines Eintrags ist durch eine von {@link #LOCK_STRIPES}
+ * Sperren geschützt, die nach dem Platz gewählt wird. Threads, die auf
+ * verschiedene Plätze schreiben, behindern sich daher fast nie. Gelesen
+ * wird ohne Sperre; einen gleichzeitig geschriebenen Eintrag verwirft
+ * die Prüfung wie einen teilweise geschriebenen.
+ */
+final class PositionCache
+{
+    /**
+     * Die Version des Dateiformats und der Bewertung. Muss erhöht werden,
+     * sobald sich Bewertungsfunktion, Bedeutung der Suchtiefe, Schlüssel oder Aufbau
+     * der Einträge ändern, damit alte Dateien nicht mehr verwendet werden.
+     */
+    static final int VERSION = 5;
+
+    /** Die Bewertung ist exakt. */
+    static final byte EXACT = 0;
+
+    /** Die tatsächliche Bewertung ist mindestens so groß wie die gespeicherte. */
+    static final byte LOWER_BOUND = 1;
+
+    /** Die tatsächliche Bewertung ist höchstens so groß wie die gespeicherte. */
+    static final byte UPPER_BOUND = 2;
+
+    /** Kennung am Anfang der Datei ("TT4R"). */
+    private static final int MAGIC = 0x54543452;
+
+    /** Größe des Dateikopfs in Bytes. */
+    private static final int HEADER_SIZE = 32;
+
+    /** Größe eines Eintrags in Bytes. */
+    private static final int ENTRY_SIZE = 20;
+
+    /** Die Anzahl der Sperren für die Einträge. Eine Zweierpotenz. */
+    private static final int LOCK_STRIPES = 64;
+
+    /** Mindestabstand zwischen zwei Schreibvorgängen auf die Platte. */
+    private static final long FLUSH_INTERVAL_NANOS = 10_000_000_000L;
+
+    /** Der Speicherbereich mit Kopf und Einträgen. */
+    private final ByteBuffer buffer;
+
+    /** Der Dateikanal, null bei einer Tabelle im Speicher. */
+    private final FileChannel channel;
+
+    /** Die Anzahl der Zeilen des Spielfelds, für das die Tabelle angelegt wurde. */
+    private final int rows;
+
+    /** Die Anzahl der Spalten des Spielfelds, für das die Tabelle angelegt wurde. */
+    private final int columns;
+
+    /** Die Reihenlänge, für die die Tabelle angelegt wurde. */
+    private final int length;
+
+    /** Bitmaske zur Berechnung des Platzes aus dem Schlüssel. */
+    private final int mask;
+
+    /** Die Generation, mit der neue Einträge gekennzeichnet werden. */
+    private final byte generation;
+
+    /** Die Sperren für die Einträge, ausgewählt nach dem Platz. */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /** Zeitpunkt des letzten Schreibvorgangs auf die Platte. */
+    private long lastFlush = System.nanoTime();
+
+    /**
+     * Ein gelesener Eintrag der Tabelle.
+     */
+    static final class Entry
+    {
+        /** Die gespeicherte Bewertung. */
+        private final int score;
+
+        /** Die Restsuchtiefe, mit der die Bewertung ermittelt wurde. */
+        private final int depth;
+
+        /** Die Art der Schranke. */
+        private final byte bound;
+
+        /** Die Zeile des besten Zugs. */
+        private final int row;
+
+        /** Die Spalte des besten Zugs. */
+        private final int column;
+
+        /**
+         * Konstruktor.
+         * @param score Die gespeicherte Bewertung.
+         * @param depth Die Restsuchtiefe.
+         * @param bound Die Art der Schranke.
+         * @param row Die Zeile des besten Zugs.
+         * @param column Die Spalte des besten Zugs.
+         */
+        private Entry(final int score, final int depth, final byte bound,
+                      final int row, final int column)
+        {
+            this.score = score;
+            this.depth = depth;
+            this.bound = bound;
+            this.row = row;
+            this.column = column;
+        }
+
+        /**
+         * Liefert die gespeicherte Bewertung.
+         * @return Die Bewertung.
+         */
+        int getScore()
+        {
+            return score;
+        }
+
+        /**
+         * Liefert die Restsuchtiefe, mit der die Bewertung ermittelt wurde.
+         * @return Die Restsuchtiefe.
+         */
+        int getDepth()
+        {
+            return depth;
+        }
+
+        /**
+         * Liefert die Art der Schranke.
+         * @return {@link #EXACT}, {@link #LOWER_BOUND} oder {@link #UPPER_BOUND}.
+         */
+        byte getBound()
+        {
+            return bound;
+        }
+
+        /**
+         * Liefert die Zeile des besten Zugs.
+         * @return Die Nummer der Zeile.
+         */
+        int getRow()
+        {
+            return row;
+        }
+
+        /**
+         * Liefert die Spalte des besten Zugs.
+         * @return Die Nummer der Spalte.
+         */
+        int getColumn()
+        {
+            return column;
+        }
+    }
+
+    /**
+     * Privater Konstruktor.
+     * @param buffer Der Speicherbereich mit Kopf und Einträgen.
+     * @param channel Der Dateikanal oder null.
+     * @param rows Die Anzahl der Zeilen des Spielfelds.
+     * @param columns Die Anzahl der Spalten des Spielfelds.
+     * @param length Die Reihenlänge.
+     * @param entries Die Anzahl der Einträge.
+     * @param generation Die Generation dieser Sitzung.
+     */
+    private PositionCache(final ByteBuffer buffer, final FileChannel channel, final int rows,
+                          final int columns, final int length, final int entries, final byte generation)
+    {
+        this.buffer = buffer;
+        this.channel = channel;
+        this.rows = rows;
+        this.columns = columns;
+        this.length = length;
+        this.mask = entries - 1;
+        this.generation = generation;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Legt eine flüchtige Tabelle im Speicher an.
+     * @param rows Die Anzahl der Zeilen des Spielfelds.
+     * @param columns Die Anzahl der Spalten des Spielfelds.
+     * @param length Die Anzahl der Steine, die zum Sieg in einer Reihe liegen müssen.
+     * @param entries Die Anzahl der Einträge. Muss eine Zweierpotenz sein.
+     * @return Die Tabelle.
+     */
+    static PositionCache inMemory(final int rows, final int columns, final int length, final int entries)
+    {
+        checkEntries(entries);
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + entries * ENTRY_SIZE);
+        writeHeader(buffer, rows, columns, length, entries);
+        return new PositionCache(buffer, null, rows, columns, length, entries, (byte) 0);
+    }
+
+    /**
+     * Öffnet eine Tabelle in einer Datei oder legt sie an. Passt eine
+     * vorhandene Datei nicht zu den Parametern oder zur {@link #VERSION},
+     * wird sie geleert. Sonst wird die Generation im Kopf weitergezählt.
+     * @param file Der Pfad der Datei.
+     * @param rows Die Anzahl der Zeilen des Spielfelds.
+     * @param columns Die Anzahl der Spalten des Spielfelds.
+     * @param length Die Anzahl der Steine, die zum Sieg in einer Reihe liegen müssen.
+     * @param entries Die Anzahl der Einträge. Muss eine Zweierpotenz sein.
+     * @return Die Tabelle.
+     * @throws IOException Die Datei konnte nicht geöffnet werden.
+     */
+    static PositionCache open(final Path file, final int rows, final int columns, final int length,
+                              final int entries) throws IOException
+    {
+        checkEntries(entries);
+        final FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE);
+        try {
+            final long fileSize = HEADER_SIZE + (long) entries * ENTRY_SIZE;
+            if (!headerMatches(channel, rows, columns, length, entries)) {
+                // Abschneiden und neu abbilden liefert eine mit Nullen
+                // gefüllte Datei, ohne jeden Eintrag einzeln zu schreiben
+                channel.truncate(0);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                writeHeader(buffer, rows, columns, length, entries);
+                return new PositionCache(buffer, channel, rows, columns, length, entries, (byte) 0);
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            final byte generation = (byte) (buffer.getInt(24) + 1);
+            buffer.putInt(24, generation & 0xFF);
+            return new PositionCache(buffer, channel, rows, columns, length, entries, generation);
+        }
+        catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Prüft die Anzahl der Einträge.
+     * @param entries Die Anzahl der Einträge.
+     */
+    private static void checkEntries(final int entries)
+    {
+        if (entries <= 0 || Integer.bitCount(entries) != 1
+                || entries > (Integer.MAX_VALUE - HEADER_SIZE) / ENTRY_SIZE) {
+            throw new IllegalArgumentException("Ungültige Tabellengröße: " + entries);
+        }
+    }
+
+    /**
+     * Prüft, ob der Kopf einer vorhandenen Datei zu den Parametern passt.
+     * @param channel Der Dateikanal.
+     * @param rows Die Anzahl der Zeilen des Spielfelds.
+     * @param columns Die Anzahl der Spalten des Spielfelds.
+     * @param length Die Reihenlänge.
+     * @param entries Die Anzahl der Einträge.
+     * @return Passt der Kopf?
+     * @throws IOException Die Datei konnte nicht gelesen werden.
+     */
+    private static boolean headerMatches(final FileChannel channel, final int rows, final int columns,
+                                         final int length, final int entries)
+            throws IOException
+    {
+        if (channel.size() != HEADER_SIZE + (long) entries * ENTRY_SIZE) {
+            return false;
+        }
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // weiterlesen, bis der Kopf vollständig ist
+        }
+        return header.getInt(0) == MAGIC
+                && header.getInt(4) == VERSION
+                && header.getInt(8) == rows
+                && header.getInt(12) == columns
+                && header.getInt(16) == length
+                && header.getInt(20) == entries;
+    }
+
+    /**
+     * Schreibt den Kopf der Tabelle.
+     * @param buffer Der Speicherbereich.
+     * @param rows Die Anzahl der Zeilen des Spielfelds.
+     * @param columns Die Anzahl der Spalten des Spielfelds.
+     * @param length Die Reihenlänge.
+     * @param entries Die Anzahl der Einträge.
+     */
+    private static void writeHeader(final ByteBuffer buffer, final int rows, final int columns,
+                                    final int length, final int entries)
+    {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, rows);
+        buffer.putInt(12, columns);
+        buffer.putInt(16, length);
+        buffer.putInt(20, entries);
+        buffer.putInt(24, 0);
+    }
+
+    /**
+     * Prüft, ob die Tabelle für ein Spielfeld dieser Größe und Reihenlänge
+     * angelegt wurde. Nur dann passen die gespeicherten Bewertungen und
+     * Züge zu den Spielständen.
+     * @param rows Die Anzahl der Zeilen des Spielfelds.
+     * @param columns Die Anzahl der Spalten des Spielfelds.
+     * @param length Die Reihenlänge.
+     * @return Passt die Tabelle?
+     */
+    boolean matches(final int rows, final int columns, final int length)
+    {
+        return this.rows == rows && this.columns == columns && this.length == length;
+    }
+
+    /**
+     * Sucht den Eintrag zu einem Schlüssel.
+     * @param key Der Hashwert des Spielstands.
+     * @return Der Eintrag oder null, wenn keiner vorhanden ist.
+     */
+    Entry probe(final long key)
+    {
+        final int slot = slot(key);
+        final int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+        // Die Daten nur einmal lesen, damit Prüfung und Eintrag zusammenpassen.
+        // Ohne Sperre, ein gleichzeitig geschriebener Eintrag fällt durch die Prüfung.
+        final long check = buffer.getLong(offset);
+        final long data = buffer.getLong(offset + 8);
+        final long move = buffer.getInt(offset + 16) & 0xFFFF_FFFFL;
+        if (key == 0 || (check ^ data ^ move) != key) {
+            return null;
+        }
+        return new Entry((int) (data >>> 32),
+                (short) (data >>> 16),
+                (byte) (data >>> 8),
+                (short) (move >>> 16),
+                (short) move);
+    }
+
+    /**
+     * Speichert einen Eintrag. Ein vorhandener Eintrag eines anderen
+     * Spielstands aus derselben Generation wird nur ersetzt, wenn er mit
+     * geringerer Tiefe ermittelt wurde. Einträge früherer Generationen
+     * werden immer ersetzt.
+     * @param key Der Hashwert des Spielstands.
+     * @param depth Die Restsuchtiefe.
+     * @param bound Die Art der Schranke.
+     * @param score Die Bewertung.
+     * @param row Die Zeile des besten Zugs.
+     * @param column Die Spalte des besten Zugs.
+     */
+    void store(final long key, final int depth, final byte bound, final int score,
+               final int row, final int column)
+    {
+        final int slot = slot(key);
+        final int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+        // Aufbau wie beim Lesen: Bewertung, Restsuchtiefe, Schranke, Generation
+        final long data = (long) score << 32
+                | (Math.min(depth, Short.MAX_VALUE) & 0xFFFFL) << 16
+                | (bound & 0xFFL) << 8
+                | generation & 0xFFL;
+        final long move = (row & 0xFFFFL) << 16 | column & 0xFFFFL;
+        synchronized (locks[slot & (LOCK_STRIPES - 1)]) {
+            final long oldData = buffer.getLong(offset + 8);
+            final long old = buffer.getLong(offset) ^ oldData ^ (buffer.getInt(offset + 16) & 0xFFFF_FFFFL);
+            if (old != 0 && old != key && (byte) oldData == generation
+                    && (short) (oldData >>> 16) > depth) {
+                return;
+            }
+            buffer.putLong(offset + 8, data);
+            buffer.putInt(offset + 16, (int) move);
+            buffer.putLong(offset, key ^ data ^ move);
+        }
+    }
+
+    /**
+     * Schreibt die Tabelle auf die Platte, sofern der letzte
+     * Schreibvorgang lange genug zurückliegt.
+     */
+    synchronized void flushIfDue()
+    {
+        if (System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS) {
+            flush();
+        }
+    }
+
+    /**
+     * Schreibt die Tabelle auf die Platte. Bei einer Tabelle im Speicher
+     * passiert nichts.
+     */
+    synchronized void flush()
+    {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * Schreibt die Tabelle auf die Platte und schließt die Datei.
+     * @throws IOException Die Datei konnte nicht geschlossen werden.
+     */
+    synchronized void close() throws IOException
+    {
+        flush();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Bestimmt den Platz eines Eintrags in der Tabelle.
+     * @param key Der Hashwert des Spielstands.
+     * @return Der Index des Platzes.
+     */
+    private int slot(final long key)
+    {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
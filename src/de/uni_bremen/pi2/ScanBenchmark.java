@@ -0,0 +1,216 @@
+package de.uni_bremen.pi2;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static de.uni_bremen.pi2.Player.*;
+
+/**
+ * Vergleicht die Laufzeit der vollständigen Untersuchung eines Spielfelds:
+ * die früher in {@link FourInARow} fest auf vier Steine zugeschnittene
+ * Siegprüfung, die Prüfungen {@link FourInARow#hasHumanWon()} und
+ * {@link FourInARow#hasComputerWon()} über die vorberechneten Reihen der
+ * {@link LineTable} (bei höchstens 64 Feldern über die Bitmasken der
+ * Steine), die feldweise Untersuchung
+ * {@link ThreatScan#scalar(Player[][], int)} und die gepackte Untersuchung
+ * {@link PackedBoard#scan(int)} mit und ohne das Packen.
+ * <p>
+ * Die Spielfelder enthalten keine vier in einer Reihe, damit keine der
+ * Prüfungen vorzeitig abbrechen kann.
+ */
+public class ScanBenchmark
+{
+    /** Anzahl der Spielfelder je Größe. */
+    private static final int BOARDS = 32;
+
+    /** Anteil der belegten Felder. */
+    private static final double DENSITY = 0.4;
+
+    /** Die Anzahl der Steine einer Reihe. */
+    private static final int LENGTH = FourInARow.DEFAULT_LENGTH;
+
+    /** Die Richtungen einer Reihe. */
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    /** Verhindert, dass der JIT-Compiler die Messungen wegoptimiert. */
+    private static long sink;
+
+    /**
+     * Eine zu messende Untersuchung.
+     */
+    private interface Scan
+    {
+        /**
+         * Untersucht ein Spielfeld.
+         * @param index Der Index des Spielfelds.
+         * @return Ein vom Ergebnis abhängiger Wert.
+         */
+        long run(int index);
+    }
+
+    /**
+     * Das Hauptprogramm.
+     * @param args Optional die Spielfeldgrößen. Ohne Angabe 4, 5, 6, 8, 16, 32, 48 und 64.
+     */
+    public static void main(final String[] args)
+    {
+        final int[] sizes = args.length == 0
+                ? new int[] {4, 5, 6, 8, 16, 32, 48, 64}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        System.out.println("Größe  4 fest  hasHumanWon+hasComputerWon  ThreatScan.scalar  pack+scan  scan"
+                + "  (ns je Spielfeld)");
+        for (final int size : sizes) {
+            final Random random = new Random(size);
+            final Player[][][] fields = new Player[BOARDS][][];
+            final FourInARow[] games = new FourInARow[BOARDS];
+            final PackedBoard[] packed = new PackedBoard[BOARDS];
+            for (int i = 0; i < BOARDS; i++) {
+                fields[i] = randomField(size, random);
+                games[i] = new FourInARow(fields[i], 1, PositionCache.inMemory(size, size, LENGTH, 1));
+                packed[i] = PackedBoard.of(fields[i]);
+                if (!ThreatScan.scalar(fields[i], LENGTH).equals(packed[i].scan(LENGTH))) {
+                    throw new IllegalStateException("Ergebnisse unterscheiden sich bei Größe " + size);
+                }
+            }
+
+            System.out.printf("%5d  %6.0f  %27.0f  %17.0f  %9.0f  %4.0f%n", size,
+                    measure(i -> (hasFour(fields[i], HUMAN) ? 1 : 0) + (hasFour(fields[i], COMPUTER) ? 2 : 0)),
+                    measure(i -> (games[i].hasHumanWon() ? 1 : 0) + (games[i].hasComputerWon() ? 2 : 0)),
+                    measure(i -> ThreatScan.scalar(fields[i], LENGTH).getHumanThreats()),
+                    measure(i -> PackedBoard.of(fields[i]).scan(LENGTH).getHumanThreats()),
+                    measure(i -> packed[i].scan(LENGTH).getHumanThreats()));
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Misst die mittlere Laufzeit einer Untersuchung nach einer Aufwärmphase.
+     * @param scan Die Untersuchung.
+     * @return Nanosekunden je Spielfeld.
+     */
+    private static double measure(final Scan scan)
+    {
+        long runs = 0;
+        for (final long end = System.nanoTime() + 300_000_000L; System.nanoTime() < end; runs++) {
+            sink += scan.run((int) (runs % BOARDS));
+        }
+        runs = 0;
+        final long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < BOARDS; i++, runs++) {
+                sink += scan.run(i);
+            }
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < 700_000_000L);
+        return (double) elapsed / runs;
+    }
+
+    /**
+     * Erzeugt ein zufällig belegtes Spielfeld ohne vier in einer Reihe.
+     * @param size Die Kantenlänge.
+     * @param random Der Zufallsgenerator.
+     * @return Das Spielfeld.
+     */
+    private static Player[][] randomField(final int size, final Random random)
+    {
+        final Player[][] field = new Player[size][size];
+        for (final Player[] row : field) {
+            Arrays.fill(row, EMPTY);
+        }
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                if (random.nextDouble() < DENSITY) {
+                    final Player player = random.nextBoolean() ? HUMAN : COMPUTER;
+                    field[row][column] = player;
+                    if (completesRow(field, row, column, player)) {
+                        field[row][column] = EMPTY;
+                    }
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Prüft, ob ein Stein vier in einer Reihe vervollständigt.
+     * @param field Das Spielfeld.
+     * @param row Die Zeile des Steins.
+     * @param column Die Spalte des Steins.
+     * @param player Der Spieler des Steins.
+     * @return Liegt der Stein in einer vollen Reihe?
+     */
+    private static boolean completesRow(final Player[][] field, final int row, final int column,
+                                        final Player player)
+    {
+        for (final int[] direction : DIRECTIONS) {
+            int count = 1;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int r = row + sign * direction[0];
+                int c = column + sign * direction[1];
+                while (r >= 0 && r < field.length && c >= 0 && c < field.length && field[r][c] == player) {
+                    count++;
+                    r += sign * direction[0];
+                    c += sign * direction[1];
+                }
+            }
+            if (count >= LENGTH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Die frühere, fest auf vier Steine und quadratische Spielfelder
+     * zugeschnittene Siegprüfung aus {@link FourInARow}. Dient als
+     * Vergleichswert für die vorberechneten Reihen.
+     * @param field Das Spielfeld.
+     * @param player Der Spieler.
+     * @return Hat der Spieler vier in einer Reihe?
+     */
+    private static boolean hasFour(final Player[][] field, final Player player)
+    {
+        final int size = field.length;
+        // senkrecht
+        for (int row = 0; row < size - 3; row++) {
+            for (int column = 0; column < size; column++) {
+                if (field[row][column] == player && player == field[row + 1][column]
+                        && player == field[row + 2][column] && player == field[row + 3][column]) {
+                    return true;
+                }
+            }
+        }
+        // waagerecht
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size - 3; column++) {
+                if (field[row][column] == player && player == field[row][column + 1]
+                        && player == field[row][column + 2] && player == field[row][column + 3]) {
+                    return true;
+                }
+            }
+        }
+        // diagonal nach rechts unten
+        for (int row = 0; row < size - 3; row++) {
+            for (int column = 0; column < size - 3; column++) {
+                if (field[row][column] == player && player == field[row + 1][column + 1]
+                        && player == field[row + 2][column + 2] && player == field[row + 3][column + 3]) {
+                    return true;
+                }
+            }
+        }
+        // diagonal nach links unten
+        for (int row = 0; row < size - 3; row++) {
+            for (int column = 3; column < size; column++) {
+                if (field[row][column] == player && player == field[row + 1][column - 1]
+                        && player == field[row + 2][column - 2] && player == field[row + 3][column - 3]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,21 @@
+package de.uni_bremen.pi2;
+
+/**
+ * Empfängt Zwischenstände einer asynchronen Suche des Computers. Wird
+ * nach jeder abgeschlossenen Iteration der iterativen Vertiefung und
+ * zusätzlich alle paar zehntausend Knoten im Thread der Suche aufgerufen
+ * und sollte daher schnell zurückkehren. Ausnahmen werden ignoriert.
+ */
+@FunctionalInterface
+interface SearchProgress
+{
+    /**
+     * Meldet einen Zwischenstand.
+     * @param bestMove Der beste bisher gefundene Zug. Während einer
+     *                 Iteration der beste bereits vollständig durchsuchte
+     *                 Zug an der Wurzel, der tiefer als depth geprüft sein kann.
+     * @param depth Die Suchtiefe, bis zu der vollständig gesucht wurde.
+     * @param nodes Die Anzahl der bisher insgesamt durchsuchten Knoten.
+     */
+    void update(Move bestMove, int depth, long nodes);
+}
@@ -0,0 +1,171 @@
+package de.uni_bremen.pi2;
+
+/**
+ * Die Einstellungen der selektiven Suche. Mit Late-Move-Reductions werden
+ * Züge, die in der Zugsortierung weit hinten liegen und keine belegten
+ * Nachbarfelder haben, zunächst mit verringerter Tiefe durchsucht und nur
+ * dann erneut voll durchsucht, wenn sie besser als der bisher beste Zug
+ * sind. Beim Null-Zug-Pruning darf der Spieler am Zug einmal aussetzen;
+ * ist die Stellung selbst dann noch ausreichend gut für ihn, wird der
+ * Teilbaum abgeschnitten.
+ * <p>
+ * Ein uneingeschränkter Null-Zug übersieht Siege des Gegners, die erst
+ * jenseits der verringerten Tiefe liegen. Er wird deshalb nur versucht,
+ * wenn dem Gegner in jeder nicht blockierten Reihe mehr Steine fehlen,
+ * als er innerhalb der Restsuchtiefe setzen kann. Da ein zusätzlicher
+ * eigener Stein nie schadet, ist das Abschneiden dann sicher: Die
+ * Bewertung nach dem Aussetzen ist für den Spieler am Zug höchstens so
+ * gut wie mit einem Zug, und die verringerte Tiefe kann nur seine eigenen
+ * Siege übersehen.
+ * <p>
+ * Die Reduktion später Züge betrifft nur Felder ohne belegte Nachbarn und
+ * hat in Vergleichen mit der vollen Breitensuche keine abweichenden
+ * Bewertungen geliefert, ist aber nicht beweisbar exakt. Voreinstellung
+ * der Konstruktoren von {@link FourInARow} ist daher {@link #FULL_WIDTH}.
+ */
+final class SearchSettings
+{
+    /** Selektive Suche mit Late-Move-Reductions und abgesichertem Null-Zug-Pruning. */
+    static final SearchSettings SELECTIVE = new SearchSettings(true, 3, 3, 1, true, 4, 1);
+
+    /** Volle Breitensuche ohne Reduktionen, wie ohne selektive Suche. */
+    static final SearchSettings FULL_WIDTH = SELECTIVE.withoutSelection();
+
+    /** Sind Late-Move-Reductions eingeschaltet? */
+    private final boolean lateMoveReductions;
+
+    /** Die Mindestrestsuchtiefe, ab der Züge reduziert werden. */
+    private final int reductionMinDepth;
+
+    /** Die Anzahl der Züge, die immer mit voller Tiefe durchsucht werden. */
+    private final int fullDepthMoves;
+
+    /** Die Anzahl der Halbzüge, um die späte Züge reduziert werden. */
+    private final int reduction;
+
+    /** Ist Null-Zug-Pruning eingeschaltet? */
+    private final boolean nullMove;
+
+    /** Die Mindestrestsuchtiefe, ab der ein Null-Zug versucht wird. */
+    private final int nullMoveMinDepth;
+
+    /** Die Anzahl der Halbzüge, um die nach einem Null-Zug zusätzlich reduziert wird. */
+    private final int nullMoveReduction;
+
+    /** Kennzeichnet die Einstellungen in den Schlüsseln der {@link PositionCache}. */
+    private final long fingerprint;
+
+    /**
+     * Konstruktor.
+     * @param lateMoveReductions Sind Late-Move-Reductions eingeschaltet?
+     * @param reductionMinDepth Die Mindestrestsuchtiefe, ab der Züge reduziert werden.
+     * @param fullDepthMoves Die Anzahl der Züge, die immer mit voller Tiefe
+     *                       durchsucht werden. Mindestens 1.
+     * @param reduction Die Anzahl der Halbzüge, um die späte Züge reduziert
+     *                  werden. Mindestens 1.
+     * @param nullMove Ist Null-Zug-Pruning eingeschaltet?
+     * @param nullMoveMinDepth Die Mindestrestsuchtiefe, ab der ein Null-Zug
+     *                         versucht wird. Muss mindestens um 2 größer als
+     *                         die Reduktion sein, damit der Gegner nach dem
+     *                         Null-Zug noch einen Zug hat.
+     * @param nullMoveReduction Die Anzahl der Halbzüge, um die nach einem
+     *                          Null-Zug zusätzlich reduziert wird. Mindestens 1.
+     */
+    SearchSettings(final boolean lateMoveReductions, final int reductionMinDepth,
+                   final int fullDepthMoves, final int reduction,
+                   final boolean nullMove, final int nullMoveMinDepth, final int nullMoveReduction)
+    {
+        if (fullDepthMoves < 1 || reduction < 1 || reductionMinDepth <= reduction) {
+            throw new IllegalArgumentException("Ungültige Einstellungen für Late-Move-Reductions");
+        }
+        if (nullMoveReduction < 1 || nullMoveMinDepth < nullMoveReduction + 2) {
+            throw new IllegalArgumentException("Ungültige Einstellungen für Null-Zug-Pruning");
+        }
+        this.lateMoveReductions = lateMoveReductions;
+        this.reductionMinDepth = reductionMinDepth;
+        this.fullDepthMoves = fullDepthMoves;
+        this.reduction = reduction;
+        this.nullMove = nullMove;
+        this.nullMoveMinDepth = nullMoveMinDepth;
+        this.nullMoveReduction = nullMoveReduction;
+        if (!lateMoveReductions && !nullMove) {
+            this.fingerprint = 0;
+        }
+        else {
+            long hash = 0;
+            for (final int value : new int[] {lateMoveReductions ? 1 : 0, reductionMinDepth, fullDepthMoves,
+                    reduction, nullMove ? 1 : 0, nullMoveMinDepth, nullMoveReduction}) {
+                // Schritt des SplitMix64-Generators, damit jede Einstellung alle Bits beeinflusst
+                hash = (hash ^ value) * 0xBF58_476D_1CE4_E5B9L;
+                hash ^= hash >>> 31;
+            }
+            this.fingerprint = hash;
+        }
+    }
+
+    /**
+     * Liefert dieselben Einstellungen mit ausgeschalteten Verfahren. Die
+     * übrigen Werte bleiben unverändert, werden aber nicht verwendet.
+     * @return Die Einstellungen der vollen Breitensuche.
+     */
+    private SearchSettings withoutSelection()
+    {
+        return new SearchSettings(false, reductionMinDepth, fullDepthMoves, reduction,
+                false, nullMoveMinDepth, nullMoveReduction);
+    }
+
+    /**
+     * Liefert einen Wert, der in die Schlüssel der Tabelle der durchsuchten
+     * Spielstände eingerechnet wird. Eine selektive Suche speichert ihre
+     * Ergebnisse unter der nominellen Restsuchtiefe, obwohl Teilbäume
+     * flacher durchsucht wurden. Mit unterschiedlichen Einstellungen
+     * getrennte Schlüssel verhindern, dass eine Suche mit anderen
+     * Einstellungen, insbesondere die volle Breitensuche, diese Einträge
+     * übernimmt. Ohne beide Verfahren ist der Wert 0.
+     * @return Der Wert.
+     */
+    long fingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * Prüft, ob ein Zug reduziert durchsucht werden soll.
+     * @param index Die Position des Zugs in der Zugsortierung.
+     * @param depth Die Restsuchtiefe.
+     * @return Soll der Zug reduziert werden?
+     */
+    boolean reduces(final int index, final int depth)
+    {
+        return lateMoveReductions && index >= fullDepthMoves && depth >= reductionMinDepth;
+    }
+
+    /**
+     * Liefert die Anzahl der Halbzüge, um die späte Züge reduziert werden.
+     * @return Die Reduktion.
+     */
+    int getReduction()
+    {
+        return reduction;
+    }
+
+    /**
+     * Prüft, ob bei einer Restsuchtiefe ein Null-Zug versucht werden soll.
+     * @param depth Die Restsuchtiefe.
+     * @return Soll ein Null-Zug versucht werden?
+     */
+    boolean triesNullMove(final int depth)
+    {
+        return nullMove && depth >= nullMoveMinDepth;
+    }
+
+    /**
+     * Liefert die Anzahl der Halbzüge, um die nach einem Null-Zug
+     * zusätzlich reduziert wird.
+     * @return Die Reduktion.
+     */
+    int getNullMoveReduction()
+    {
+        return nullMoveReduction;
+    }
+}
@@ -0,0 +1,294 @@
+package de.uni_bremen.pi2;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static de.uni_bremen.pi2.Player.*;
+import static de.uni_bremen.pi2.Result.*;
+
+/**
+ * Vergleicht die Suche mit selektiven Verfahren mit der vollen
+ * Breitensuche. Zuerst durchsuchen beide Einstellungen dieselben festen
+ * Stellungen mit demselben Budget an Knoten. Ausgegeben werden die
+ * erreichte Suchtiefe und der Aufwand bis zu jeder Suchtiefe. Stellungen,
+ * in denen eine der Suchen vor dem Budget endet, etwa weil sie einen
+ * erzwungenen Sieg gefunden hat, werden dabei nicht gezählt. Danach
+ * spielen beide Einstellungen mit diesem Budget je Zug gegeneinander.
+ * Jede Seite sieht das Spielfeld aus ihrer Sicht, d.h. ihre eigenen Steine
+ * sind COMPUTER und die des Gegners HUMAN.
+ */
+public class SelfPlay
+{
+    /** Anzahl der zufälligen Steine je Seite zu Beginn eines Spiels. */
+    private static final int OPENING_STONES = 2;
+
+    /** Die Namen der beiden Einstellungen in der Ausgabe. */
+    private static final String[] NAMES = {"Selektiv", "Voll"};
+
+    /** Die beiden verglichenen Einstellungen, in der Reihenfolge der Namen. */
+    private static final SearchSettings[] SETTINGS = {SearchSettings.SELECTIVE, SearchSettings.FULL_WIDTH};
+
+    /**
+     * Ein Teilnehmer am Selbstspiel.
+     */
+    private static final class Engine
+    {
+        /** Das Spiel dieses Teilnehmers. */
+        private final FourInARow game;
+
+        /** Die vollständig abgeschlossene Suchtiefe der letzten Suche. */
+        private int depth;
+
+        /** Die Anzahl der Knoten der letzten Suche. */
+        private long nodes;
+
+        /** Hat die letzte Suche das Budget erreicht? */
+        private boolean budgetReached;
+
+        /** Je Suchtiefe die Knoten der letzten Suche bis zu ihrem Abschluss. */
+        private final long[] depthNodes;
+
+        /** Je Suchtiefe die Rechenzeit der letzten Suche bis zu ihrem Abschluss in Nanosekunden. */
+        private final long[] depthNanos;
+
+        /**
+         * Konstruktor.
+         * @param field Das Spielfeld aus Sicht dieses Teilnehmers.
+         * @param settings Die Einstellungen der selektiven Suche.
+         */
+        private Engine(final Player[][] field, final SearchSettings settings)
+        {
+            // Die Tiefe begrenzt nur die iterative Vertiefung, das Budget beendet die Suche.
+            final int maxDepth = field.length * field.length;
+            this.game = new FourInARow(field, maxDepth,
+                    PositionCache.inMemory(field.length, field.length, FourInARow.DEFAULT_LENGTH,
+                            FourInARow.CACHE_ENTRIES), settings);
+            this.depthNodes = new long[maxDepth + 1];
+            this.depthNanos = new long[maxDepth + 1];
+        }
+
+        /**
+         * Sucht den besten Zug, bis das Budget an Knoten erreicht ist. Die
+         * Suche wird bei den Zwischenständen abgebrochen und kann das Budget
+         * daher um bis zu einen Meldeabstand überschreiten.
+         * @param budget Die Anzahl der Knoten, nach der abgebrochen wird.
+         * @return Der beste Zug der tiefsten abgeschlossenen Suchtiefe.
+         */
+        private Move search(final long budget)
+        {
+            depth = 0;
+            nodes = 0;
+            budgetReached = false;
+            final long start = System.nanoTime();
+            // Die Suche läuft in diesem Thread, aber erst, wenn der Auftrag zum Abbrechen bekannt ist.
+            final Runnable[] pending = new Runnable[1];
+            final ComputerMoveTask[] task = new ComputerMoveTask[1];
+            task[0] = game.computerMoveAsync(search -> pending[0] = search, (move, completed, searched) -> {
+                // die erste Meldung einer Tiefe kommt direkt nach ihrem Abschluss
+                if (completed > depth) {
+                    depth = completed;
+                    depthNodes[completed] = searched;
+                    depthNanos[completed] = System.nanoTime() - start;
+                }
+                nodes = searched;
+                if (searched >= budget) {
+                    budgetReached = true;
+                    task[0].cancel();
+                }
+            });
+            pending[0].run();
+            return task[0].getResult().join();
+        }
+    }
+
+    /**
+     * Das Hauptprogramm.
+     * @param args Spielfeldgröße, Budget an Knoten je Zug, Anzahl der
+     *             Spiele und Anzahl der festen Stellungen. Fehlende
+     *             Angaben werden durch 6, 200000, 20 und 100 ersetzt.
+     */
+    public static void main(final String[] args)
+    {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        final long budget = args.length > 1 ? Long.parseLong(args[1]) : 200_000;
+        final int games = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        final int positions = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        compareDepth(size, budget, positions);
+        playGames(size, budget, games);
+    }
+
+    /**
+     * Durchsucht feste zufällige Stellungen mit beiden Einstellungen und
+     * gibt die erreichte Suchtiefe und den Aufwand je Suchtiefe aus.
+     * @param size Die Spielfeldgröße.
+     * @param budget Das Budget an Knoten je Suche.
+     * @param positions Die Anzahl der Stellungen.
+     */
+    private static void compareDepth(final int size, final long budget, final int positions)
+    {
+        final int maxDepth = size * size;
+        final long[] depths = new long[2];
+        // je Suchtiefe: Stellungen, in denen beide sie abgeschlossen haben, und deren Aufwand
+        final int[] reached = new int[maxDepth + 1];
+        final long[][] depthNodes = new long[2][maxDepth + 1];
+        final long[][] depthNanos = new long[2][maxDepth + 1];
+        int counted = 0;
+        int skipped = 0;
+
+        final Random random = new Random(size);
+        for (int p = 0; p < positions; p++) {
+            final Player[][] field = randomPosition(size, random);
+            final Engine[] engines = new Engine[2];
+            for (int s = 0; s < 2; s++) {
+                engines[s] = new Engine(copy(field), SETTINGS[s]);
+                engines[s].search(budget);
+            }
+            if (!engines[0].budgetReached || !engines[1].budgetReached) {
+                skipped++;
+                continue;
+            }
+            counted++;
+            final int common = Math.min(engines[0].depth, engines[1].depth);
+            for (int s = 0; s < 2; s++) {
+                depths[s] += engines[s].depth;
+                for (int d = 1; d <= common; d++) {
+                    depthNodes[s][d] += engines[s].depthNodes[d];
+                    depthNanos[s][d] += engines[s].depthNanos[d];
+                }
+            }
+            for (int d = 1; d <= common; d++) {
+                reached[d]++;
+            }
+        }
+
+        System.out.println("Feste Stellungen auf " + size + "x" + size + ", " + budget + " Knoten/Suche: "
+                + counted + " gezählt, " + skipped + " vor dem Budget beendet");
+        for (int s = 0; s < 2; s++) {
+            System.out.printf("%-8s: Tiefe %.2f%n", NAMES[s], (double) depths[s] / Math.max(counted, 1));
+        }
+        System.out.println("Tiefe  Stellungen  Knoten " + NAMES[0] + "  Knoten " + NAMES[1]
+                + "  ms " + NAMES[0] + "  ms " + NAMES[1]);
+        for (int d = 1; d <= maxDepth && reached[d] > 0; d++) {
+            System.out.printf("%5d  %10d  %15d  %11d  %11.1f  %7.1f%n", d, reached[d],
+                    depthNodes[0][d] / reached[d], depthNodes[1][d] / reached[d],
+                    depthNanos[0][d] / 1e6 / reached[d], depthNanos[1][d] / 1e6 / reached[d]);
+        }
+    }
+
+    /**
+     * Lässt beide Einstellungen gegeneinander spielen und gibt die
+     * Ergebnisse aus Sicht der selektiven Suche aus.
+     * @param size Die Spielfeldgröße.
+     * @param budget Das Budget an Knoten je Zug.
+     * @param games Die Anzahl der Spiele.
+     */
+    private static void playGames(final int size, final long budget, final int games)
+    {
+        // Ergebnisse aus Sicht der selektiven Suche: Siege, Niederlagen, Unentschieden.
+        final int[] results = new int[3];
+
+        for (int g = 0; g < games; g++) {
+            final Random random = new Random(g / 2);
+            final Player[][] fieldA = emptyField(size);
+            final Player[][] fieldB = emptyField(size);
+            for (int i = 0; i < 2 * OPENING_STONES; i++) {
+                int row;
+                int column;
+                do {
+                    row = random.nextInt(size);
+                    column = random.nextInt(size);
+                } while (fieldA[row][column] != EMPTY);
+                fieldA[row][column] = i % 2 == 0 ? COMPUTER : HUMAN;
+                fieldB[row][column] = i % 2 == 0 ? HUMAN : COMPUTER;
+            }
+            final Engine[] engines = {
+                new Engine(fieldA, SETTINGS[0]),
+                new Engine(fieldB, SETTINGS[1])
+            };
+
+            // Jede Eröffnung wird zweimal gespielt, jeweils mit anderem Anziehenden.
+            int turn = g % 2;
+            Result result = CONTINUE;
+            while (result == CONTINUE) {
+                final Engine mover = engines[turn];
+                if (mover.game.checkIfFull()) {
+                    result = DRAW;
+                    break;
+                }
+                final Move move = mover.search(budget);
+                result = mover.game.computerMove(move);
+                engines[1 - turn].game.humanMove(move.getRow(), move.getColumn());
+                if (result == COMPUTER_WON) {
+                    results[turn]++;
+                }
+                else if (result == DRAW) {
+                    results[2]++;
+                }
+                turn = 1 - turn;
+            }
+        }
+
+        System.out.println("Selbstspiel auf " + size + "x" + size + ", " + games + " Spiele, "
+                + budget + " Knoten/Zug");
+        System.out.println(NAMES[0] + ": " + results[0] + " Siege, "
+                + results[1] + " Niederlagen, " + results[2] + " Unentschieden");
+    }
+
+    /**
+     * Erzeugt eine zufällige Stellung mit gleich vielen Steinen beider
+     * Seiten, in der noch niemand gewonnen hat und noch viele Felder frei
+     * sind.
+     * @param size Die Kantenlänge.
+     * @param random Der Zufallsgenerator.
+     * @return Das Spielfeld.
+     */
+    private static Player[][] randomPosition(final int size, final Random random)
+    {
+        while (true) {
+            final Player[][] field = emptyField(size);
+            final int stones = 2 * (1 + random.nextInt(size * size / 8));
+            for (int i = 0; i < stones; i++) {
+                int row;
+                int column;
+                do {
+                    row = random.nextInt(size);
+                    column = random.nextInt(size);
+                } while (field[row][column] != EMPTY);
+                field[row][column] = i % 2 == 0 ? COMPUTER : HUMAN;
+            }
+            final LineTable lines = new LineTable(size, size, FourInARow.DEFAULT_LENGTH);
+            if (!lines.hasLine(field, COMPUTER) && !lines.hasLine(field, HUMAN)) {
+                return field;
+            }
+        }
+    }
+
+    /**
+     * Kopiert ein Spielfeld.
+     * @param field Das Spielfeld.
+     * @return Die Kopie.
+     */
+    private static Player[][] copy(final Player[][] field)
+    {
+        final Player[][] copy = new Player[field.length][];
+        for (int row = 0; row < field.length; row++) {
+            copy[row] = field[row].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Erzeugt ein leeres Spielfeld.
+     * @param size Die Kantenlänge.
+     * @return Das Spielfeld.
+     */
+    private static Player[][] emptyField(final int size)
+    {
+        final Player[][] field = new Player[size][size];
+        for (final Player[] row : field) {
+            Arrays.fill(row, EMPTY);
+        }
+        return field;
+    }
+}
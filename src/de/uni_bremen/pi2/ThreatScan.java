@@ -0,0 +1,185 @@
+package de.uni_bremen.pi2;
+
+import static de.uni_bremen.pi2.Player.*;
+
+/**
+ * Das Ergebnis einer vollständigen Untersuchung eines Spielfelds auf
+ * Siege und Drohungen beider Seiten. Eine Drohung ist eine Reihe aus k
+ * Feldern (waagerecht, senkrecht oder diagonal), auf der k-1 Steine eines
+ * Spielers liegen und das letzte Feld frei ist. Gezählt werden Reihen,
+ * nicht Felder.
+ */
+final class ThreatScan
+{
+    /** Hat der Mensch eine volle Reihe? */
+    private final boolean humanWon;
+
+    /** Hat der Computer eine volle Reihe? */
+    private final boolean computerWon;
+
+    /** Die Anzahl der Drohungen des Menschen. */
+    private final int humanThreats;
+
+    /** Die Anzahl der Drohungen des Computers. */
+    private final int computerThreats;
+
+    /**
+     * Konstruktor.
+     * @param humanWon Hat der Mensch eine volle Reihe?
+     * @param computerWon Hat der Computer eine volle Reihe?
+     * @param humanThreats Die Anzahl der Drohungen des Menschen.
+     * @param computerThreats Die Anzahl der Drohungen des Computers.
+     */
+    ThreatScan(final boolean humanWon, final boolean computerWon,
+               final int humanThreats, final int computerThreats)
+    {
+        this.humanWon = humanWon;
+        this.computerWon = computerWon;
+        this.humanThreats = humanThreats;
+        this.computerThreats = computerThreats;
+    }
+
+    /**
+     * Untersucht ein Spielfeld. Passt eine Zeile in ein long, wird das
+     * Spielfeld gepackt und mit {@link PackedBoard#scan(int)} wortparallel
+     * untersucht, sonst Feld für Feld.
+     * @param field Das Spielfeld. Alle Zeilen müssen gleich lang sein.
+     * @param length Die Anzahl der Felder einer Reihe. Mindestens 1.
+     * @return Das Ergebnis.
+     */
+    static ThreatScan of(final Player[][] field, final int length)
+    {
+        if (field.length == 0 || PackedBoard.fits(field[0].length)) {
+            return PackedBoard.of(field).scan(length);
+        }
+        return scalar(field, length);
+    }
+
+    /**
+     * Untersucht ein Spielfeld Feld für Feld. Dient als Ersatz, wenn eine
+     * Zeile nicht in ein long passt.
+     * @param field Das Spielfeld. Alle Zeilen müssen gleich lang sein.
+     * @param length Die Anzahl der Felder einer Reihe. Mindestens 1.
+     * @return Das Ergebnis.
+     */
+    static ThreatScan scalar(final Player[][] field, final int length)
+    {
+        if (length < 1) {
+            throw new IllegalArgumentException("Ungültige Reihenlänge: " + length);
+        }
+        // Richtungen: waagerecht, senkrecht, diagonal nach rechts unten und nach links unten.
+        final int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        final int rows = field.length;
+        final int columns = rows == 0 ? 0 : field[0].length;
+        boolean humanWon = false;
+        boolean computerWon = false;
+        int humanThreats = 0;
+        int computerThreats = 0;
+
+        for (final int[] direction : directions) {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    final int lastRow = row + (length - 1) * direction[0];
+                    final int lastColumn = column + (length - 1) * direction[1];
+                    if (lastRow >= rows || lastColumn < 0 || lastColumn >= columns) {
+                        continue;
+                    }
+                    int human = 0;
+                    int computer = 0;
+                    for (int i = 0; i < length; i++) {
+                        final Player player = field[row + i * direction[0]][column + i * direction[1]];
+                        if (player == HUMAN) {
+                            human++;
+                        }
+                        else if (player == COMPUTER) {
+                            computer++;
+                        }
+                    }
+                    humanWon |= human == length;
+                    computerWon |= computer == length;
+                    if (human == length - 1 && computer == 0) {
+                        humanThreats++;
+                    }
+                    // bei length 1 ist ein freies Feld für beide eine Drohung
+                    if (computer == length - 1 && human == 0) {
+                        computerThreats++;
+                    }
+                }
+            }
+        }
+        return new ThreatScan(humanWon, computerWon, humanThreats, computerThreats);
+    }
+
+    /**
+     * Hat der Mensch eine volle Reihe?
+     * @return Die Antwort.
+     */
+    boolean hasHumanWon()
+    {
+        return humanWon;
+    }
+
+    /**
+     * Hat der Computer eine volle Reihe?
+     * @return Die Antwort.
+     */
+    boolean hasComputerWon()
+    {
+        return computerWon;
+    }
+
+    /**
+     * Liefert die Anzahl der Drohungen des Menschen.
+     * @return Die Anzahl.
+     */
+    int getHumanThreats()
+    {
+        return humanThreats;
+    }
+
+    /**
+     * Liefert die Anzahl der Drohungen des Computers.
+     * @return Die Anzahl.
+     */
+    int getComputerThreats()
+    {
+        return computerThreats;
+    }
+
+    /**
+     * Vergleicht zwei Ergebnisse.
+     * @param other Das andere Objekt.
+     * @return Stimmen alle Werte überein?
+     */
+    @Override
+    public boolean equals(final Object other)
+    {
+        if (!(other instanceof ThreatScan)) {
+            return false;
+        }
+        final ThreatScan scan = (ThreatScan) other;
+        return humanWon == scan.humanWon && computerWon == scan.computerWon
+                && humanThreats == scan.humanThreats && computerThreats == scan.computerThreats;
+    }
+
+    /**
+     * Liefert einen zu {@link #equals(Object)} passenden Hashwert.
+     * @return Der Hashwert.
+     */
+    @Override
+    public int hashCode()
+    {
+        return ((humanThreats * 31 + computerThreats) * 2 + (humanWon ? 1 : 0)) * 2 + (computerWon ? 1 : 0);
+    }
+
+    /**
+     * Die Darstellung des Ergebnisses.
+     * @return Siege und Drohungen beider Seiten.
+     */
+    @Override
+    public String toString()
+    {
+        return HUMAN + ": " + (humanWon ? "gewonnen, " : "") + humanThreats + " Drohungen, "
+                + COMPUTER + ": " + (computerWon ? "gewonnen, " : "") + computerThreats + " Drohungen";
+    }
+}
@@ -0,0 +1,69 @@
+package de.uni_bremen.pi2;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Eine Hauptvariante: ein Zug des Computers an der Wurzel der Suche mit
+ * seiner Bewertung und der erwarteten Fortsetzung. Für die Bewertung gilt
+ * wie bei der minimax-Methode, je kleiner, desto besser für den Computer.
+ */
+final class Variation
+{
+    /** Die Züge der Variante, beginnend mit dem Zug an der Wurzel. */
+    private final List<Move> moves;
+
+    /**
+     * Konstruktor.
+     * @param moves Die Züge der Variante, beginnend mit dem Zug an der
+     *              Wurzel, der auch die Bewertung der Variante trägt.
+     *              Darf nicht leer sein.
+     */
+    Variation(final List<Move> moves)
+    {
+        assert !moves.isEmpty() : "Leere Variante";
+        this.moves = Collections.unmodifiableList(moves);
+    }
+
+    /**
+     * Liefert den Zug an der Wurzel.
+     * @return Der Zug mit der Bewertung der Variante.
+     */
+    Move getMove()
+    {
+        return moves.get(0);
+    }
+
+    /**
+     * Liefert die Bewertung der Variante.
+     * @return Die Bewertung.
+     */
+    int getScore()
+    {
+        return moves.get(0).getScore();
+    }
+
+    /**
+     * Liefert alle Züge der Variante, abwechselnd von Computer und Mensch.
+     * @return Die Züge, beginnend mit dem Zug an der Wurzel.
+     */
+    List<Move> getLine()
+    {
+        return moves;
+    }
+
+    /**
+     * Die Darstellung der Variante mit 1-basierten Zeilen- und Spaltennummern.
+     * @return Die Züge und die Bewertung als Zeichenkette.
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder string = new StringBuilder();
+        for (final Move move : moves) {
+            string.append('(').append(move.getRow() + 1).append(',')
+                    .append(move.getColumn() + 1).append(") ");
+        }
+        return string.append(getScore()).toString();
+    }
+}
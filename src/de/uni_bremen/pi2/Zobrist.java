@@ -0,0 +1,87 @@
+package de.uni_bremen.pi2;
+
+import java.util.Random;
+
+/**
+ * Zufallsschlüssel für das Zobrist-Hashing von Spielständen. Ein Spielstand
+ * wird durch die XOR-Verknüpfung der Schlüssel aller belegten Felder
+ * beschrieben, wodurch sich der Hashwert bei jedem Zug in konstanter Zeit
+ * fortschreiben lässt.
+ * Die Schlüssel werden aus einem festen, von der Spielfeldgröße abhängigen
+ * Startwert erzeugt und sind daher über Neustarts der JVM hinweg gleich.
+ * Nur so bleiben gespeicherte Einträge im {@link PositionCache} gültig.
+ */
+final class Zobrist
+{
+    /** Schlüssel für einen Stein des Menschen, indiziert nach Zeile und Spalte. */
+    private final long[][] human;
+
+    /** Schlüssel für einen Stein des Computers, indiziert nach Zeile und Spalte. */
+    private final long[][] computer;
+
+    /** Schlüssel, der eingerechnet wird, wenn der Computer am Zug ist. */
+    private final long computerAmZug;
+
+    /**
+     * Konstruktor.
+     * @param rows Die Anzahl der Zeilen des Spielfelds.
+     * @param columns Die Anzahl der Spalten des Spielfelds.
+     */
+    Zobrist(final int rows, final int columns)
+    {
+        final Random random = new Random((0x4F1E_2C3AL * 31 + rows) * 31 + columns);
+        human = new long[rows][columns];
+        computer = new long[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                human[row][column] = random.nextLong();
+                computer[row][column] = random.nextLong();
+            }
+        }
+        computerAmZug = random.nextLong();
+    }
+
+    /**
+     * Liefert den Schlüssel eines Steins auf einem Feld.
+     * @param row Die Zeile des Feldes.
+     * @param column Die Spalte des Feldes.
+     * @param player Der Spieler, dessen Stein dort liegt.
+     * @return Der Schlüssel, 0 für ein leeres Feld.
+     */
+    long stone(final int row, final int column, final Player player)
+    {
+        switch (player) {
+            case HUMAN:
+                return human[row][column];
+            case COMPUTER:
+                return computer[row][column];
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Liefert den Schlüssel für "Computer ist am Zug".
+     * @return Der Schlüssel.
+     */
+    long computerToMove()
+    {
+        return computerAmZug;
+    }
+
+    /**
+     * Berechnet den Hashwert eines Spielfelds vollständig neu.
+     * @param field Das Spielfeld.
+     * @return Der Hashwert (ohne Berücksichtigung, wer am Zug ist).
+     */
+    long hash(final Player[][] field)
+    {
+        long hash = 0;
+        for (int row = 0; row < field.length; row++) {
+            for (int column = 0; column < field[row].length; column++) {
+                hash ^= stone(row, column, field[row][column]);
+            }
+        }
+        return hash;
+    }
+}